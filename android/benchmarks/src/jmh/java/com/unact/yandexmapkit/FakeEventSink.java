@@ -0,0 +1,24 @@
+package com.unact.yandexmapkit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Counts events instead of sending them to Dart, the last arguments of every event are kept */
+final class FakeEventSink implements MapCore.EventSink {
+  final Map<String, Integer> counts = new HashMap<>();
+  final Map<String, Map<String, Object>> lastArguments = new HashMap<>();
+
+  @Override
+  public void send(String event, Map<String, Object> arguments) {
+    final Integer count = counts.get(event);
+
+    counts.put(event, count != null ? count + 1 : 1);
+    lastArguments.put(event, arguments);
+  }
+
+  int count(String event) {
+    final Integer count = counts.get(event);
+
+    return count != null ? count : 0;
+  }
+}
@@ -0,0 +1,87 @@
+package com.unact.yandexmapkit;
+
+import java.util.Map;
+
+/** Keeps map objects in memory instead of drawing them */
+final class FakeMapBackend implements MapBackend {
+  static final class Placemark {
+    double latitude;
+    double longitude;
+    final Map<String, Object> params;
+
+    Placemark(double latitude, double longitude, Map<String, Object> params) {
+      this.latitude = latitude;
+      this.longitude = longitude;
+      this.params = params;
+    }
+  }
+
+  final IntObjectMap<Placemark> placemarks = new IntObjectMap<>();
+  final IntObjectMap<RingBuffer<double[]>> polylines = new IntObjectMap<>();
+  int flushCount = 0;
+
+  @Override
+  public void addPlacemark(int key, double latitude, double longitude, Map<String, Object> params) {
+    placemarks.put(key, new Placemark(latitude, longitude, params));
+  }
+
+  @Override
+  public void movePlacemark(int key, double latitude, double longitude) {
+    final Placemark placemark = placemarks.get(key);
+
+    if (placemark != null) {
+      placemark.latitude = latitude;
+      placemark.longitude = longitude;
+    }
+  }
+
+  @Override
+  public void removePlacemark(int key) {
+    placemarks.remove(key);
+  }
+
+  @Override
+  public void addPolyline(int key, double[] coordinates, Map<String, Object> params) {
+    final RingBuffer<double[]> track = new RingBuffer<>(coordinates.length / 2, RingBuffer.UNBOUNDED);
+
+    appendPoints(track, coordinates);
+    polylines.put(key, track);
+  }
+
+  @Override
+  public void appendPolylinePoints(int key, double[] coordinates, Integer maxLength) {
+    final RingBuffer<double[]> track = polylines.get(key);
+
+    if (track == null) {
+      return;
+    }
+
+    if (maxLength != null) {
+      track.setMaxLength(maxLength);
+    }
+
+    appendPoints(track, coordinates);
+  }
+
+  @Override
+  public void removePolyline(int key) {
+    polylines.remove(key);
+  }
+
+  @Override
+  public void flush() {
+    flushCount++;
+  }
+
+  @Override
+  public void clear() {
+    placemarks.clear();
+    polylines.clear();
+  }
+
+  private static void appendPoints(RingBuffer<double[]> track, double[] coordinates) {
+    for (int i = 0; i + 1 < coordinates.length; i += 2) {
+      track.add(new double[] { coordinates[i], coordinates[i + 1] });
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.unact.yandexmapkit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimates routes along straight lines between waypoints.
+ *
+ * Answers after `latency` milliseconds of scheduler time, modes only differ in their speed.
+ * Unknown modes throw right away like the MapKit router backend does.
+ */
+final class FakeRouterBackend implements RouterBackend {
+  private static final Map<String, Double> SPEEDS = new HashMap<>();
+
+  static {
+    // Meters per second
+    SPEEDS.put("pedestrian", 1.4);
+    SPEEDS.put("bicycle", 4.2);
+    SPEEDS.put("masstransit", 6.9);
+    SPEEDS.put("driving", 11.1);
+  }
+
+  private final Scheduler scheduler;
+  private final PointGridIndex.Metric metric;
+  private final long latency;
+  int requestCount = 0;
+  int cancelCount = 0;
+
+  FakeRouterBackend(Scheduler scheduler, PointGridIndex.Metric metric, long latency) {
+    this.scheduler = scheduler;
+    this.metric = metric;
+    this.latency = latency;
+  }
+
+  @Override
+  public Request estimate(String mode, final double[] waypoints, final Listener listener) {
+    final Double speed = SPEEDS.get(mode);
+
+    if (speed == null) {
+      throw new IllegalArgumentException("Unknown route mode: " + mode);
+    }
+
+    requestCount++;
+
+    final Runnable answer = new Runnable() {
+      @Override
+      public void run() {
+        listener.onEstimation(estimation(waypoints, speed));
+      }
+    };
+
+    scheduler.postDelayed(answer, latency);
+
+    return new Request() {
+      @Override
+      public void cancel() {
+        cancelCount++;
+        scheduler.cancel(answer);
+      }
+    };
+  }
+
+  private Map<String, Object> estimation(double[] waypoints, double speed) {
+    double distance = 0;
+
+    for (int i = 2; i + 1 < waypoints.length; i += 2) {
+      distance += metric.distance(waypoints[i - 2], waypoints[i - 1], waypoints[i], waypoints[i + 1]);
+    }
+
+    final double time = distance / speed;
+    final Map<String, Object> estimation = new HashMap<>();
+
+    estimation.put("timeText", Math.round(time / 60) + " min");
+    estimation.put("time", time);
+    estimation.put("distance", distance);
+    estimation.put("walkingDistance", null);
+
+    return estimation;
+  }
+}
@@ -0,0 +1,83 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers every search with `pageCount` pages of `pageSize` synthetic results.
+ *
+ * Pages arrive after `latency` milliseconds of scheduler time, never before the call returns.
+ */
+final class FakeSearchBackend implements SearchBackend {
+  private final Scheduler scheduler;
+  private final int pageCount;
+  private final int pageSize;
+  private final long latency;
+  int pageRequestCount = 0;
+
+  FakeSearchBackend(Scheduler scheduler, int pageCount, int pageSize, long latency) {
+    this.scheduler = scheduler;
+    this.pageCount = pageCount;
+    this.pageSize = pageSize;
+    this.latency = latency;
+  }
+
+  @Override
+  public Session submit(String query, Map<String, Object> params, Listener listener) {
+    final FakeSession session = new FakeSession(query);
+
+    session.fetchNextPage(listener);
+    return session;
+  }
+
+  private class FakeSession implements Session, Runnable {
+    final String query;
+    int loadedPages = 0;
+    Listener listener;
+
+    FakeSession(String query) {
+      this.query = query;
+    }
+
+    @Override
+    public boolean hasNextPage() {
+      return loadedPages < pageCount;
+    }
+
+    @Override
+    public void fetchNextPage(Listener listener) {
+      pageRequestCount++;
+      this.listener = listener;
+      scheduler.postDelayed(this, latency);
+    }
+
+    @Override
+    public void cancel() {
+      scheduler.cancel(this);
+      listener = null;
+    }
+
+    @Override
+    public void run() {
+      final Listener pageListener = listener;
+      final List<Map<String, Object>> items = new ArrayList<>(pageSize);
+
+      for (int i = 0; i < pageSize; i++) {
+        final int index = loadedPages * pageSize + i;
+        final Map<String, Object> item = new HashMap<>();
+
+        item.put("name", query + " " + index);
+        item.put("description", null);
+        item.put("latitude", 55.75 + index * 0.001);
+        item.put("longitude", 37.62 + index * 0.001);
+        items.add(item);
+      }
+
+      loadedPages++;
+      listener = null;
+      pageListener.onResponse(items);
+    }
+  }
+}
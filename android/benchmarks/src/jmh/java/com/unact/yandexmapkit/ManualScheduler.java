@@ -0,0 +1,84 @@
+package com.unact.yandexmapkit;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Scheduler with virtual time, tasks run only when the time is advanced.
+ *
+ * Tasks due at the same time run in the order they were posted.
+ */
+final class ManualScheduler implements Scheduler {
+  private static final class Task implements Comparable<Task> {
+    final Runnable runnable;
+    final long dueAt;
+    final long order;
+
+    Task(Runnable runnable, long dueAt, long order) {
+      this.runnable = runnable;
+      this.dueAt = dueAt;
+      this.order = order;
+    }
+
+    @Override
+    public int compareTo(Task other) {
+      if (dueAt != other.dueAt) {
+        return Long.compare(dueAt, other.dueAt);
+      }
+
+      return Long.compare(order, other.order);
+    }
+  }
+
+  private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+  private long now = 0;
+  private long postedCount = 0;
+
+  @Override
+  public void postDelayed(Runnable task, long delayMillis) {
+    tasks.add(new Task(task, now + Math.max(0, delayMillis), postedCount++));
+  }
+
+  @Override
+  public void cancel(Runnable task) {
+    final Iterator<Task> iterator = tasks.iterator();
+
+    while (iterator.hasNext()) {
+      if (iterator.next().runnable == task) {
+        iterator.remove();
+      }
+    }
+  }
+
+  long now() {
+    return now;
+  }
+
+  int pendingCount() {
+    return tasks.size();
+  }
+
+  /** Runs tasks due within `millis` from now, including ones posted by them */
+  void advance(long millis) {
+    final long until = now + millis;
+
+    while (!tasks.isEmpty() && tasks.peek().dueAt <= until) {
+      final Task task = tasks.poll();
+
+      now = task.dueAt;
+      task.runnable.run();
+    }
+
+    now = until;
+  }
+
+  /** Runs tasks until none are left */
+  void runAll() {
+    while (!tasks.isEmpty()) {
+      final Task task = tasks.poll();
+
+      now = Math.max(now, task.dueAt);
+      task.runnable.run();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.unact.yandexmapkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the controller core with in-memory backends.
+ *
+ * Measures what a method call costs on the plugin side, without drawing, routing
+ * or searching. Router and search latencies pass in scheduler time, so they take no wall time.
+ *
+ * The core is created once per iteration, an invocation level fixture would cost more
+ * than the smaller benchmarks. Every benchmark leaves the core as it found it instead,
+ * resetting it where needed as a part of the measured operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapCoreBenchmark {
+  @Param({"10", "100", "1000", "10000", "100000"})
+  int size;
+
+  private ManualScheduler scheduler;
+  private FakeMapBackend mapBackend;
+  private FakeEventSink eventSink;
+  private MapCore core;
+  private List<Map<String, Object>> placemarks;
+  private List<Map<String, Object>> moves;
+  private List<Object> hashCodes;
+  private Map<String, Object> batch;
+  private Map<String, Object> search;
+
+  @Setup(Level.Trial)
+  public void setUpParams() {
+    final Random random = new Random(42);
+
+    placemarks = new ArrayList<>(size);
+    moves = new ArrayList<>(size);
+    hashCodes = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+      final Map<String, Object> placemark = new HashMap<>();
+      final Map<String, Object> move = new HashMap<>();
+      final double latitude = 55.5 + random.nextDouble();
+      final double longitude = 37.0 + random.nextDouble();
+
+      placemark.put("hashCode", i);
+      placemark.put("latitude", latitude);
+      placemark.put("longitude", longitude);
+      placemark.put("opacity", 1.0);
+      placemark.put("isDraggable", false);
+      placemarks.add(placemark);
+
+      move.put("hashCode", i);
+      move.put("latitude", latitude + 0.001);
+      move.put("longitude", longitude + 0.001);
+      moves.add(move);
+
+      hashCodes.add(i);
+    }
+
+    final Map<String, Object> destination = new HashMap<>();
+    destination.put("latitude", 55.75);
+    destination.put("longitude", 37.62);
+
+    batch = new HashMap<>();
+    batch.put("batchId", 1);
+    batch.put("mode", "driving");
+    batch.put("origins", moves);
+    batch.put("destination", destination);
+    batch.put("maxConcurrency", 8);
+    batch.put("timeout", 10000);
+
+    // Pages of 10 results, as many as there are placemarks
+    search = new HashMap<>();
+    search.put("searchId", 1);
+    search.put("query", "cafe");
+    search.put("stream", true);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpCore() {
+    final HaversineMetric metric = new HaversineMetric();
+
+    scheduler = new ManualScheduler();
+    mapBackend = new FakeMapBackend();
+    eventSink = new FakeEventSink();
+    core = new MapCore(
+      mapBackend,
+      new FakeRouterBackend(scheduler, metric, 50),
+      new FakeSearchBackend(scheduler, Math.max(1, size / 10), 10, 50),
+      scheduler,
+      eventSink,
+      metric
+    );
+  }
+
+  /** Includes clearing the placemarks, otherwise next calls would replace them instead of adding */
+  @Benchmark
+  public int addPlacemarks() {
+    core.addPlacemarks(placemarks);
+
+    final int count = core.placemarkCount();
+
+    core.clear();
+    return count;
+  }
+
+  @Benchmark
+  public int addMoveRemovePlacemarks() {
+    core.addPlacemarks(placemarks);
+    core.updatePlacemarkPoints(moves);
+    core.removePlacemarks(hashCodes);
+    return core.placemarkCount();
+  }
+
+  /** Runs the batch to the end, which removes it from the core */
+  @Benchmark
+  public void estimateRouteBatch(Blackhole blackhole) {
+    core.estimateRouteBatch(batch);
+    scheduler.runAll();
+    blackhole.consume(eventSink.count("onRouteEstimationBatchResult"));
+  }
+
+  /** Streams every page, the next call closes the finished search as a part of its measurement */
+  @Benchmark
+  public void searchPagedStream(Blackhole blackhole) {
+    core.searchPaged(search, new MapCore.Result() {
+      @Override
+      public void success(Object value) {}
+
+      @Override
+      public void error(String errorCode, String errorMessage) {}
+    });
+    scheduler.runAll();
+    blackhole.consume(eventSink.count("onSearchPage"));
+  }
+}
@@ -0,0 +1,234 @@
+package com.unact.yandexmapkit;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates and disposes `MapCore` with in-memory backends 1000 times and fails
+ * if disposed cores stay reachable or the heap keeps growing.
+ *
+ * Before it is disposed every core gets placemarks, a polyline, estimations of all modes,
+ * a route batch and a streaming search, some of them still in flight.
+ * One scheduler is shared by all cores like the main looper on a device,
+ * so a task left behind by `dispose` would keep its core alive.
+ *
+ * Every core also has distance matrices in its `TaskGroup` on one executor shared by all cores,
+ * as the controller has for its icon decodes and matrices. Their callbacks hold the core,
+ * so a task which is not cancelled with the group would keep it alive.
+ * Listeners, the handler and map objects of the controller need MapKit and are not covered.
+ *
+ * Run with `gradle leakCheck` from this directory.
+ */
+public final class MapCoreLeakCheck {
+  private static final int CYCLES = 1000;
+  private static final int WARMUP_CYCLES = 100;
+  private static final int PLACEMARKS = 500;
+  private static final int MATRIX_POINTS = 100;
+  private static final int MATRICES = 8;
+  private static final long MAX_HEAP_GROWTH = 4 * 1024 * 1024;
+
+  private static final MapCore.Result IGNORED_RESULT = new MapCore.Result() {
+    @Override
+    public void success(Object value) {}
+
+    @Override
+    public void error(String errorCode, String errorMessage) {}
+  };
+
+  private MapCoreLeakCheck() {}
+
+  public static void main(String[] args) throws InterruptedException, ExecutionException {
+    // A daemon, so tasks left after a failed check do not keep the check running
+    final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable task) {
+        final Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    final ManualScheduler scheduler = new ManualScheduler();
+    final HaversineMetric metric = new HaversineMetric();
+    final List<WeakReference<MapCore>> disposedCores = new ArrayList<>(CYCLES);
+    long baselineHeap = 0;
+
+    for (int cycle = 0; cycle < CYCLES; cycle++) {
+      final FakeMapBackend mapBackend = new FakeMapBackend();
+      final MapCore core = new MapCore(
+        mapBackend,
+        new FakeRouterBackend(scheduler, metric, 50),
+        new FakeSearchBackend(scheduler, 5, 10, 50),
+        scheduler,
+        new FakeEventSink(),
+        metric
+      );
+
+      final TaskGroup backgroundTasks = new TaskGroup();
+
+      use(core, scheduler);
+      computeInBackground(core, backgroundTasks, executor, metric);
+      core.dispose();
+      backgroundTasks.cancelAll();
+
+      check(scheduler.pendingCount() == 0, "Tasks are left scheduled after dispose in cycle " + cycle);
+      check(mapBackend.placemarks.isEmpty(), "Placemarks are left after dispose in cycle " + cycle);
+      check(mapBackend.polylines.isEmpty(), "Polylines are left after dispose in cycle " + cycle);
+      check(core.placemarkCount() == 0, "Placemark index is not empty after dispose in cycle " + cycle);
+      check(backgroundTasks.size() == 0, "Background tasks are left after dispose in cycle " + cycle);
+
+      disposedCores.add(new WeakReference<>(core));
+
+      if (cycle == WARMUP_CYCLES - 1) {
+        baselineHeap = usedHeap();
+      }
+    }
+
+    // Waits for the task which was running when the last core was disposed
+    executor.submit(new Runnable() {
+      @Override
+      public void run() {}
+    }).get();
+    executor.shutdown();
+
+    final long heapGrowth = usedHeap() - baselineHeap;
+    int reachableCores = 0;
+
+    for (WeakReference<MapCore> reference : disposedCores) {
+      if (reference.get() != null) {
+        reachableCores++;
+      }
+    }
+
+    System.out.println(
+      "cycles=" + CYCLES +
+      " reachableCores=" + reachableCores +
+      " heapGrowth=" + heapGrowth / 1024 + "KB"
+    );
+
+    check(reachableCores == 0, reachableCores + " disposed cores are still reachable");
+    check(
+      heapGrowth <= MAX_HEAP_GROWTH,
+      "Heap grew by " + heapGrowth / 1024 + "KB after warmup, limit is " + MAX_HEAP_GROWTH / 1024 + "KB"
+    );
+  }
+
+  private static void use(MapCore core, ManualScheduler scheduler) {
+    final List<Map<String, Object>> placemarks = new ArrayList<>(PLACEMARKS);
+    final List<Map<String, Object>> moves = new ArrayList<>(PLACEMARKS);
+    final List<Object> removed = new ArrayList<>();
+
+    for (int i = 0; i < PLACEMARKS; i++) {
+      placemarks.add(point(i, 55.5 + i * 0.001, 37.5 + i * 0.001));
+      moves.add(point(i, 55.5 + i * 0.001, 37.6 + i * 0.001));
+
+      if (i % 2 == 0) {
+        removed.add(i);
+      }
+    }
+
+    core.addPlacemarks(placemarks);
+    core.updatePlacemarkPoints(moves);
+    core.removePlacemarks(removed);
+
+    final Map<String, Object> polyline = new HashMap<>();
+    polyline.put("hashCode", 1);
+    polyline.put("coordinates", moves.subList(0, 100));
+    core.addPolyline(polyline);
+
+    final Map<String, Object> estimations = new HashMap<>();
+    estimations.put("points", moves.subList(0, 2));
+    estimations.put("modes", Arrays.asList("driving", "pedestrian", "bicycle", "masstransit"));
+    estimations.put("timeout", 1000);
+    core.estimateAllModes(estimations, IGNORED_RESULT);
+
+    final Map<String, Object> batch = new HashMap<>();
+    batch.put("batchId", 1);
+    batch.put("mode", "driving");
+    batch.put("origins", moves.subList(0, 20));
+    batch.put("destination", point(0, 55.75, 37.62));
+    batch.put("maxConcurrency", 4);
+    batch.put("timeout", 1000);
+    core.estimateRouteBatch(batch);
+
+    final Map<String, Object> search = new HashMap<>();
+    search.put("searchId", 1);
+    search.put("query", "cafe");
+    search.put("stream", true);
+    core.searchPaged(search, IGNORED_RESULT);
+
+    // First answers arrive, the rest of the batch, the search and new estimations are in flight
+    scheduler.advance(60);
+    core.estimateAllModes(estimations, IGNORED_RESULT);
+  }
+
+  private static void computeInBackground(
+    final MapCore core,
+    TaskGroup backgroundTasks,
+    ExecutorService executor,
+    HaversineMetric metric
+  ) {
+    final double[] points = new double[MATRIX_POINTS * 2];
+
+    for (int i = 0; i < MATRIX_POINTS; i++) {
+      points[i * 2] = 55.5 + i * 0.001;
+      points[i * 2 + 1] = 37.5 + i * 0.001;
+    }
+
+    for (int i = 0; i < MATRICES; i++) {
+      DistanceMatrix.computeAsync(
+        points,
+        points,
+        metric,
+        backgroundTasks.on(executor),
+        2,
+        new DistanceMatrix.Callback() {
+          // Holds the core like the controller callback holds the controller
+          @Override
+          public void onComputed(double[] distances) {
+            core.placemarkCount();
+          }
+
+          @Override
+          public void onError(RuntimeException e) {
+            core.placemarkCount();
+          }
+        }
+      );
+    }
+  }
+
+  private static Map<String, Object> point(int hashCode, double latitude, double longitude) {
+    final Map<String, Object> point = new HashMap<>();
+
+    point.put("hashCode", hashCode);
+    point.put("latitude", latitude);
+    point.put("longitude", longitude);
+
+    return point;
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    final Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
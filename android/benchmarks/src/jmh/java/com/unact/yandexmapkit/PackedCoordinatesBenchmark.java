@@ -0,0 +1,84 @@
+package com.unact.yandexmapkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of polyline coordinates in every format Dart can send them in.
+ *
+ * `maps` decodes the legacy list of latitude/longitude maps the same way `YandexMapController` does,
+ * but into an array, so all benchmarks measure decoding only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PackedCoordinatesBenchmark {
+  @Param({"10", "100", "1000", "10000", "100000"})
+  int size;
+
+  private double[] doubles;
+  private byte[] bytes;
+  private List<Map<String, Object>> maps;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    final ByteBuffer buffer = ByteBuffer.allocate(size * 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    doubles = new double[size * 2];
+    maps = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+      final double latitude = 55 + random.nextDouble();
+      final double longitude = 37 + random.nextDouble();
+      final Map<String, Object> coordinate = new HashMap<>();
+
+      doubles[i * 2] = latitude;
+      doubles[i * 2 + 1] = longitude;
+      buffer.putDouble(latitude).putDouble(longitude);
+      coordinate.put("latitude", latitude);
+      coordinate.put("longitude", longitude);
+      maps.add(coordinate);
+    }
+
+    bytes = buffer.array();
+  }
+
+  @Benchmark
+  public double[] doubles() {
+    return PackedCoordinates.toDoubles(doubles);
+  }
+
+  @Benchmark
+  public double[] bytes() {
+    return PackedCoordinates.toDoubles(bytes);
+  }
+
+  @Benchmark
+  public double[] maps() {
+    final double[] coordinates = new double[maps.size() * 2];
+    int i = 0;
+
+    for (Map<String, Object> c : maps) {
+      coordinates[i++] = (Double) c.get("latitude");
+      coordinates[i++] = (Double) c.get("longitude");
+    }
+
+    return coordinates;
+  }
+}
@@ -0,0 +1,100 @@
+package com.unact.yandexmapkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of map objects by the hash code of their Dart counterparts.
+ *
+ * Compares the primitive keyed map used by the controller with a boxed `HashMap`
+ * and with scanning a list, which the controller used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlacemarkLookupBenchmark {
+  private static final int LOOKUPS = 1024;
+
+  @Param({"10", "100", "1000", "10000", "100000"})
+  int size;
+
+  private final IntObjectMap<Object> intObjectMap = new IntObjectMap<>();
+  private final Map<Integer, Object> hashMap = new HashMap<>();
+  private final List<Placemark> list = new ArrayList<>();
+  private int[] lookups;
+
+  private static final class Placemark {
+    final int hashCode;
+
+    Placemark(int hashCode) {
+      this.hashCode = hashCode;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    final int[] keys = new int[size];
+
+    // Dart hash codes are 30 bit identity hashes
+    for (int i = 0; i < size; i++) {
+      final int key = random.nextInt(1 << 30);
+      final Placemark placemark = new Placemark(key);
+
+      keys[i] = key;
+      intObjectMap.put(key, placemark);
+      hashMap.put(key, placemark);
+      list.add(placemark);
+    }
+
+    lookups = new int[LOOKUPS];
+
+    for (int i = 0; i < LOOKUPS; i++) {
+      lookups[i] = keys[random.nextInt(size)];
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void intObjectMap(Blackhole blackhole) {
+    for (int key : lookups) {
+      blackhole.consume(intObjectMap.get(key));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void hashMap(Blackhole blackhole) {
+    for (int key : lookups) {
+      blackhole.consume(hashMap.get(key));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void listScan(Blackhole blackhole) {
+    for (int key : lookups) {
+      for (Placemark placemark : list) {
+        if (placemark.hashCode == key) {
+          blackhole.consume(placemark);
+          break;
+        }
+      }
+    }
+  }
+}
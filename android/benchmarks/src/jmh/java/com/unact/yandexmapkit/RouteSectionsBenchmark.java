@@ -0,0 +1,90 @@
+package com.unact.yandexmapkit;
+
+import com.unact.yandexmapkit.RouteSections.PointBound;
+import com.unact.yandexmapkit.RouteSections.RoutePoint;
+import com.unact.yandexmapkit.RouteSections.SectionInfo;
+import com.unact.yandexmapkit.RouteSections.SectionTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Processing of masstransit route sections done for every built route */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteSectionsBenchmark {
+  @Param({"10", "100", "1000", "10000", "100000"})
+  int size;
+
+  private List<SectionInfo> sections;
+  private List<SectionInfo> mergedSections;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    final RoutePoint[] points = {
+      new RoutePoint("start", 0xFF00FF00, 0),
+      new RoutePoint("stop", 0xFF0000FF, 1),
+      new RoutePoint("transfer", 0xFFFF0000, 2)
+    };
+
+    sections = new ArrayList<>(size);
+
+    // Routes alternate walks, often split into several sections, with rides
+    for (int i = 0; i < size; i++) {
+      final PointBound bound = new PointBound(points[random.nextInt(3)], points[random.nextInt(3)]);
+
+      if (random.nextInt(10) < 6) {
+        sections.add(new SectionInfo("pedestrian", random.nextInt(600), random.nextInt(1000), 0xFF888888, bound));
+      } else {
+        sections.add(new SectionTransport(
+          "bus",
+          random.nextInt(1800),
+          0,
+          0xFF0066FF,
+          "Line " + i,
+          "line_" + i,
+          "Direction " + i,
+          "10 min",
+          Arrays.asList("Station 1", "Station 2", "Station 3"),
+          bound
+        ));
+      }
+    }
+
+    mergedSections = RouteSections.mergeSectionInfoList(sections);
+  }
+
+  @Benchmark
+  public List<SectionInfo> mergeSectionInfoList() {
+    return RouteSections.mergeSectionInfoList(sections);
+  }
+
+  @Benchmark
+  public List<RoutePoint> createRoutePoints() {
+    return RouteSections.createRoutePoints(mergedSections);
+  }
+
+  @Benchmark
+  public void serialize(Blackhole blackhole) {
+    for (SectionInfo section : mergedSections) {
+      final Map<String, Object> serialized = section.serialize();
+
+      blackhole.consume(serialized);
+    }
+  }
+}
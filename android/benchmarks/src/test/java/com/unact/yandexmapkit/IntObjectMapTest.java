@@ -0,0 +1,110 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntObjectMapTest {
+  @Test
+  public void deleteHeavySequenceMatchesHashMap() {
+    final Random random = new Random(1);
+    final IntObjectMap<String> map = new IntObjectMap<>();
+    final Map<Integer, String> reference = new HashMap<>();
+
+    for (int step = 0; step < 200000; step++) {
+      // Few distinct keys keep probe chains long and wrapping around the table
+      final int key = random.nextInt(300) - 150;
+
+      if (random.nextInt(5) < 3) {
+        assertEquals(reference.remove(key), map.remove(key));
+      } else {
+        final String value = "v" + step;
+        assertEquals(reference.put(key, value), map.put(key, value));
+      }
+
+      assertEquals(reference.size(), map.size());
+
+      if (step % 1000 == 0) {
+        assertSameContents(reference, map);
+      }
+    }
+
+    assertSameContents(reference, map);
+  }
+
+  @Test
+  public void sequentialKeysSurviveRehashAndRemoval() {
+    final IntObjectMap<Integer> map = new IntObjectMap<>(4);
+
+    for (int i = 0; i < 10000; i++) {
+      map.put(i, i);
+    }
+
+    for (int i = 0; i < 10000; i += 2) {
+      assertEquals(i, (int) map.remove(i));
+    }
+
+    assertEquals(5000, map.size());
+
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(i % 2 == 1, map.containsKey(i));
+    }
+  }
+
+  @Test
+  public void clearedMapIsReusable() {
+    final IntObjectMap<String> map = new IntObjectMap<>();
+
+    for (int i = 0; i < 100; i++) {
+      map.put(i, "a");
+    }
+
+    map.clear();
+
+    assertTrue(map.isEmpty());
+    assertNull(map.get(5));
+    assertFalse(map.iterator().hasNext());
+
+    map.put(5, "b");
+    assertEquals("b", map.get(5));
+    assertEquals(1, map.size());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullValuesAreRejected() {
+    new IntObjectMap<String>().put(1, null);
+  }
+
+  private static void assertSameContents(Map<Integer, String> reference, IntObjectMap<String> map) {
+    for (Map.Entry<Integer, String> entry : reference.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+
+    final Set<Integer> keys = new HashSet<>();
+    final IntObjectMap.Cursor<String> cursor = map.cursor();
+
+    while (cursor.next()) {
+      assertTrue("Duplicate key " + cursor.key(), keys.add(cursor.key()));
+      assertEquals(reference.get(cursor.key()), cursor.value());
+    }
+
+    assertEquals(reference.keySet(), keys);
+
+    final Set<String> values = new HashSet<>();
+
+    for (String value : map) {
+      values.add(value);
+    }
+
+    assertEquals(new HashSet<>(reference.values()), values);
+  }
+}
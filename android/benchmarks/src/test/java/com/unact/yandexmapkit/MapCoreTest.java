@@ -0,0 +1,163 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MapCoreTest {
+  private ManualScheduler scheduler;
+  private FakeEventSink eventSink;
+  private MapCore core;
+
+  /** Keeps every answer, so answering twice is caught */
+  private static final class RecordingResult implements MapCore.Result {
+    final List<Object> successes = new ArrayList<>();
+    final List<String> errors = new ArrayList<>();
+
+    @Override
+    public void success(Object value) {
+      successes.add(value);
+    }
+
+    @Override
+    public void error(String errorCode, String errorMessage) {
+      errors.add(errorCode);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    final HaversineMetric metric = new HaversineMetric();
+
+    scheduler = new ManualScheduler();
+    eventSink = new FakeEventSink();
+    core = new MapCore(
+      new FakeMapBackend(),
+      new FakeRouterBackend(scheduler, metric, 50),
+      new FakeSearchBackend(scheduler, 3, 1, 50),
+      scheduler,
+      eventSink,
+      metric
+    );
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void estimateAllModesSkipsUnknownModes() {
+    final RecordingResult result = new RecordingResult();
+
+    core.estimateAllModes(estimationParams("driving", "rocket"), result);
+    scheduler.runAll();
+
+    assertEquals(1, result.successes.size());
+    assertEquals(0, result.errors.size());
+
+    final Map<String, Object> estimations = (Map<String, Object>) result.successes.get(0);
+
+    assertNotNull(estimations.get("driving"));
+    assertTrue(!estimations.containsKey("rocket"));
+  }
+
+  @Test
+  public void estimateAllModesWithOnlyUnknownModesAnswersAtOnce() {
+    final RecordingResult result = new RecordingResult();
+
+    core.estimateAllModes(estimationParams("rocket", "teleport"), result);
+
+    assertEquals(1, result.successes.size());
+    assertEquals(new HashMap<String, Object>(), result.successes.get(0));
+    assertEquals(0, scheduler.pendingCount());
+
+    // The deadline must not answer again
+    scheduler.advance(10000);
+    assertEquals(1, result.successes.size());
+  }
+
+  @Test
+  public void estimateRouteBatchReportsUnknownModeForEveryOrigin() {
+    final Map<String, Object> params = new HashMap<>();
+
+    params.put("batchId", 1);
+    params.put("mode", "rocket");
+    params.put("origins", Arrays.asList(point(55.7, 37.6), point(55.8, 37.6), point(55.9, 37.6)));
+    params.put("destination", point(55.75, 37.62));
+    params.put("maxConcurrency", 2);
+    params.put("timeout", 1000);
+
+    core.estimateRouteBatch(params);
+
+    assertEquals(3, eventSink.count("onRouteEstimationBatchResult"));
+    assertEquals(1, eventSink.count("onRouteEstimationBatchDone"));
+    assertNull(eventSink.lastArguments.get("onRouteEstimationBatchResult").get("estimation"));
+    assertNotNull(eventSink.lastArguments.get("onRouteEstimationBatchResult").get("error"));
+    assertEquals(0, scheduler.pendingCount());
+  }
+
+  @Test
+  public void disposeAnswersPendingCalls() {
+    final RecordingResult estimation = new RecordingResult();
+    final RecordingResult firstPage = new RecordingResult();
+    final RecordingResult secondPage = new RecordingResult();
+
+    core.searchPaged(searchParams(2), new RecordingResult());
+    scheduler.advance(50);
+    core.fetchNextSearchPage(2, secondPage);
+    core.estimateAllModes(estimationParams("driving", "pedestrian"), estimation);
+    core.searchPaged(searchParams(1), firstPage);
+
+    core.dispose();
+
+    for (RecordingResult result : Arrays.asList(estimation, firstPage, secondPage)) {
+      assertEquals(0, result.successes.size());
+      assertEquals(Collections.singletonList(MapCore.DISPOSED_ERROR), result.errors);
+    }
+
+    // Responses on their way must not answer again
+    scheduler.advance(10000);
+
+    for (RecordingResult result : Arrays.asList(estimation, firstPage, secondPage)) {
+      assertEquals(0, result.successes.size());
+      assertEquals(1, result.errors.size());
+    }
+  }
+
+  private static Map<String, Object> searchParams(int searchId) {
+    final Map<String, Object> params = new HashMap<>();
+
+    params.put("searchId", searchId);
+    params.put("query", "cafe");
+    params.put("stream", false);
+
+    return params;
+  }
+
+  private static Map<String, Object> estimationParams(String... modes) {
+    final Map<String, Object> params = new HashMap<>();
+
+    params.put("points", Arrays.asList(point(55.7, 37.6), point(55.8, 37.6)));
+    params.put("modes", Arrays.asList(modes));
+    params.put("timeout", 1000);
+
+    return params;
+  }
+
+  private static Map<String, Object> point(double latitude, double longitude) {
+    final Map<String, Object> point = new HashMap<>();
+
+    point.put("latitude", latitude);
+    point.put("longitude", longitude);
+
+    return point;
+  }
+}
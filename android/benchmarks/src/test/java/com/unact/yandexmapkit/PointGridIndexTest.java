@@ -0,0 +1,202 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class PointGridIndexTest {
+  private static final double CELL_SIZE = 0.5;
+
+  private final HaversineMetric metric = new HaversineMetric();
+  private Random random;
+  private PointGridIndex index;
+  private Map<Integer, double[]> reference;
+
+  @Before
+  public void setUp() {
+    random = new Random(3);
+    index = new PointGridIndex(CELL_SIZE);
+    reference = new HashMap<>();
+  }
+
+  @Test
+  public void queriesMatchBruteForceAfterMovesAndRemovals() {
+    for (int step = 0; step < 20000; step++) {
+      final int id = random.nextInt(500);
+
+      if (random.nextInt(4) == 0) {
+        assertEquals(reference.remove(id) != null, index.remove(id));
+      } else {
+        final double[] point = randomPoint();
+        index.put(id, point[0], point[1]);
+        reference.put(id, point);
+      }
+
+      if (step % 100 == 0) {
+        assertEquals(reference.size(), index.size());
+        assertQueryMatches(randomLatitude(), randomLongitude(), randomLatitude(), randomLongitude());
+      }
+    }
+  }
+
+  @Test
+  public void boxesOnCellEdgesIncludeTheirEdges() {
+    for (int i = 0; i < 2000; i++) {
+      put(i, randomEdge(90), randomEdge(180));
+    }
+
+    for (int i = 0; i < 200; i++) {
+      final double minLatitude = randomEdge(90);
+      final double minLongitude = randomEdge(180);
+
+      assertQueryMatches(minLatitude, minLongitude, minLatitude + CELL_SIZE * 3, minLongitude + CELL_SIZE * 3);
+    }
+  }
+
+  @Test
+  public void boxesCrossingTheAntimeridianWrapAround() {
+    for (int i = 0; i < 1000; i++) {
+      put(i, randomLatitude(), random.nextBoolean() ? 170 + random.nextDouble() * 10 : -180 + random.nextDouble() * 10);
+    }
+
+    put(1000, 0, 180);
+    put(1001, 0, -180);
+
+    assertQueryMatches(-10, 175, 10, -175);
+    assertQueryMatches(-90, 179.5, 90, -179.5);
+    assertQueryMatches(-90, 180, 90, -180);
+  }
+
+  @Test
+  public void withinRadiusAndNearestMatchBruteForce() {
+    for (int i = 0; i < 3000; i++) {
+      put(i, randomLatitude(), randomLongitude());
+    }
+
+    // Polar and antimeridian centers included
+    final double[][] centers = { { 0, 0 }, { 55.75, 37.62 }, { 89.5, 10 }, { -89.9, 0 }, { 10, 179.9 }, { -10, -179.9 } };
+
+    for (double[] center : centers) {
+      for (double radius : new double[] { 1000, 100000, 1000000, 10000000, 30000000 }) {
+        final Set<Integer> expected = new HashSet<>();
+
+        for (Map.Entry<Integer, double[]> entry : reference.entrySet()) {
+          if (distance(center, entry.getValue()) <= radius) {
+            expected.add(entry.getKey());
+          }
+        }
+
+        final List<PointGridIndex.Neighbour> found = index.withinRadius(center[0], center[1], radius, metric);
+        final Set<Integer> foundIds = new HashSet<>();
+
+        for (PointGridIndex.Neighbour neighbour : found) {
+          foundIds.add(neighbour.id);
+        }
+
+        assertEquals("Center " + center[0] + "," + center[1] + " radius " + radius, expected, foundIds);
+        assertSortedByDistance(found);
+      }
+
+      final List<Double> distances = new ArrayList<>();
+
+      for (double[] point : reference.values()) {
+        distances.add(distance(center, point));
+      }
+
+      Collections.sort(distances);
+
+      for (int count : new int[] { 1, 10, 100, 5000 }) {
+        final List<PointGridIndex.Neighbour> nearest = index.nearest(center[0], center[1], count, metric);
+
+        assertEquals(Math.min(count, reference.size()), nearest.size());
+
+        for (int i = 0; i < nearest.size(); i++) {
+          assertEquals(distances.get(i), nearest.get(i).distance, 1e-6);
+        }
+      }
+    }
+  }
+
+  private void put(int id, double latitude, double longitude) {
+    index.put(id, latitude, longitude);
+    reference.put(id, new double[] { latitude, longitude });
+  }
+
+  private void assertQueryMatches(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+    if (minLatitude > maxLatitude) {
+      final double latitude = minLatitude;
+      minLatitude = maxLatitude;
+      maxLatitude = latitude;
+    }
+
+    final Set<Integer> expected = new HashSet<>();
+
+    for (Map.Entry<Integer, double[]> entry : reference.entrySet()) {
+      final double latitude = entry.getValue()[0];
+      final double longitude = entry.getValue()[1];
+      final boolean insideLongitudes = minLongitude <= maxLongitude ?
+        longitude >= minLongitude && longitude <= maxLongitude :
+        longitude >= minLongitude || longitude <= maxLongitude;
+
+      if (latitude >= minLatitude && latitude <= maxLatitude && insideLongitudes) {
+        expected.add(entry.getKey());
+      }
+    }
+
+    final Set<Integer> found = new HashSet<>();
+
+    index.query(minLatitude, minLongitude, maxLatitude, maxLongitude, new PointGridIndex.Visitor() {
+      @Override
+      public void visit(int id, double latitude, double longitude) {
+        found.add(id);
+      }
+    });
+
+    assertEquals(
+      "Box " + minLatitude + "," + minLongitude + " - " + maxLatitude + "," + maxLongitude,
+      expected,
+      found
+    );
+  }
+
+  private static void assertSortedByDistance(List<PointGridIndex.Neighbour> neighbours) {
+    for (int i = 1; i < neighbours.size(); i++) {
+      assertEquals(true, neighbours.get(i - 1).distance <= neighbours.get(i).distance);
+    }
+  }
+
+  private double distance(double[] from, double[] to) {
+    return metric.distance(from[0], from[1], to[0], to[1]);
+  }
+
+  private double[] randomPoint() {
+    // Mostly a dense area with moves across cell boundaries, sometimes anywhere
+    if (random.nextInt(4) == 0) {
+      return new double[] { randomLatitude(), randomLongitude() };
+    }
+
+    return new double[] { 55 + random.nextDouble() * 2, 37 + random.nextDouble() * 2 };
+  }
+
+  private double randomLatitude() {
+    return random.nextDouble() * 180 - 90;
+  }
+
+  private double randomLongitude() {
+    return random.nextDouble() * 360 - 180;
+  }
+
+  private double randomEdge(double limit) {
+    return Math.floor((random.nextDouble() * 2 - 1) * limit / CELL_SIZE) * CELL_SIZE;
+  }
+}
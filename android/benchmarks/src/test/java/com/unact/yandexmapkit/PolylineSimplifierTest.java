@@ -0,0 +1,78 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PolylineSimplifierTest {
+  @Test
+  public void droppedPointsStayWithinToleranceOfTheSimplifiedLine() {
+    final Random random = new Random(6);
+
+    for (int track = 0; track < 200; track++) {
+      final int length = 3 + random.nextInt(500);
+      final double[] x = new double[length];
+      final double[] y = new double[length];
+
+      // Random walk with repeated points, which give zero length segments
+      for (int i = 1; i < length; i++) {
+        final boolean repeat = random.nextInt(10) == 0;
+        x[i] = x[i - 1] + (repeat ? 0 : random.nextGaussian());
+        y[i] = y[i - 1] + (repeat ? 0 : random.nextGaussian());
+      }
+
+      final double tolerance = random.nextDouble() * 3;
+      final int[] kept = PolylineSimplifier.simplify(x, y, tolerance);
+
+      assertEquals(0, kept[0]);
+      assertEquals(length - 1, kept[kept.length - 1]);
+
+      for (int k = 1; k < kept.length; k++) {
+        assertTrue("Indexes are not ascending", kept[k - 1] < kept[k]);
+
+        for (int i = kept[k - 1] + 1; i < kept[k]; i++) {
+          final double distance = segmentDistance(x[i], y[i], x[kept[k - 1]], y[kept[k - 1]], x[kept[k]], y[kept[k]]);
+
+          assertTrue("Point " + i + " is " + distance + " away, tolerance " + tolerance, distance <= tolerance + 1e-9);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void collinearPointsAreDropped() {
+    final double[] x = { 0, 1, 2, 3, 4 };
+    final double[] y = { 0, 1, 2, 3, 4 };
+
+    assertArrayEquals(new int[] { 0, 4 }, PolylineSimplifier.simplify(x, y, 0.1));
+  }
+
+  @Test
+  public void zeroToleranceKeepsEveryCorner() {
+    final double[] x = { 0, 1, 2, 3, 4 };
+    final double[] y = { 0, 1, 0, 1, 0 };
+
+    assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, PolylineSimplifier.simplify(x, y, 0));
+  }
+
+  @Test
+  public void shortLinesAreKeptAsTheyAre() {
+    assertArrayEquals(new int[] {}, PolylineSimplifier.simplify(new double[] {}, new double[] {}, 1));
+    assertArrayEquals(new int[] { 0, 1 }, PolylineSimplifier.simplify(new double[] { 0, 1 }, new double[] { 0, 1 }, 1));
+  }
+
+  private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+    final double dx = bx - ax;
+    final double dy = by - ay;
+    final double lengthSquared = dx * dx + dy * dy;
+    final double t = lengthSquared == 0 ?
+      0 :
+      Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+
+    return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+  }
+}
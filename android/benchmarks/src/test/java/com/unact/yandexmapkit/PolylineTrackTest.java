@@ -0,0 +1,176 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PolylineTrackTest {
+  private static final int CHUNK_LENGTH = 8;
+
+  /** Draws the track in memory and counts the points passed to it */
+  private static final class RecordingListener implements PolylineTrack.Listener<Integer> {
+    final ArrayDeque<List<Integer>> chunks = new ArrayDeque<>();
+    List<Integer> tail = Collections.emptyList();
+    int drawnPoints = 0;
+
+    @Override
+    public void onChunkSealed(List<Integer> points) {
+      chunks.addLast(points);
+      drawnPoints += points.size();
+    }
+
+    @Override
+    public void onOldestChunkTrimmed(List<Integer> points) {
+      chunks.removeFirst();
+      chunks.addFirst(points);
+      drawnPoints += points.size();
+    }
+
+    @Override
+    public void onOldestChunkDropped() {
+      chunks.removeFirst();
+    }
+
+    @Override
+    public void onTailChanged(List<Integer> points) {
+      tail = points;
+      drawnPoints += points.size();
+    }
+
+    /** Points as they are drawn, boundary points shared by neighbours are taken once */
+    List<Integer> drawn() {
+      final List<Integer> points = new ArrayList<>();
+
+      for (List<Integer> chunk : chunks) {
+        assertTrue("Chunk of " + chunk.size() + " points", chunk.size() >= 2 && chunk.size() <= CHUNK_LENGTH + 1);
+        appendJoined(points, chunk);
+      }
+
+      assertTrue("Tail of " + tail.size() + " points", tail.size() <= CHUNK_LENGTH + 1);
+      appendJoined(points, tail);
+
+      return points;
+    }
+
+    private static void appendJoined(List<Integer> points, List<Integer> part) {
+      if (part.isEmpty()) {
+        return;
+      }
+
+      if (!points.isEmpty()) {
+        assertEquals("Parts are not joined", points.get(points.size() - 1), part.get(0));
+        points.addAll(part.subList(1, part.size()));
+      } else {
+        points.addAll(part);
+      }
+    }
+  }
+
+  @Test
+  public void unboundedTrackKeepsEveryPoint() {
+    final RecordingListener listener = new RecordingListener();
+    final PolylineTrack<Integer> track = new PolylineTrack<>(CHUNK_LENGTH, RingBuffer.UNBOUNDED, listener);
+    final List<Integer> expected = new ArrayList<>();
+
+    for (int i = 0; i < 100; i++) {
+      track.addAll(Collections.singletonList(i));
+      expected.add(i);
+
+      assertEquals(expected, listener.drawn());
+    }
+
+    assertEquals(100 / CHUNK_LENGTH, track.chunkCount());
+  }
+
+  @Test
+  public void appendingPointByPointCostsTheSameForAnyLength() {
+    final RecordingListener listener = new RecordingListener();
+    final PolylineTrack<Integer> track = new PolylineTrack<>(CHUNK_LENGTH, RingBuffer.UNBOUNDED, listener);
+
+    for (int i = 0; i < 10000; i++) {
+      listener.drawnPoints = 0;
+      track.addAll(Collections.singletonList(i));
+
+      // At most the tail and a sealed chunk
+      assertTrue(listener.drawnPoints <= 2 * (CHUNK_LENGTH + 1));
+    }
+  }
+
+  @Test
+  public void boundedTrackKeepsLastPoints() {
+    final RecordingListener listener = new RecordingListener();
+    final PolylineTrack<Integer> track = new PolylineTrack<>(CHUNK_LENGTH, 20, listener);
+
+    for (int i = 0; i < 200; i++) {
+      listener.drawnPoints = 0;
+      track.addAll(Collections.singletonList(i));
+
+      assertEquals(range(Math.max(0, i - 19), i), listener.drawn());
+      // At most the tail, a sealed chunk and the trimmed oldest chunk
+      assertTrue(listener.drawnPoints <= 3 * (CHUNK_LENGTH + 1));
+    }
+  }
+
+  @Test
+  public void randomBatchesAndMaxLengthChangesMatchReference() {
+    final Random random = new Random(42);
+    final RecordingListener listener = new RecordingListener();
+    final PolylineTrack<Integer> track = new PolylineTrack<>(CHUNK_LENGTH, RingBuffer.UNBOUNDED, listener);
+    final ArrayDeque<Integer> expected = new ArrayDeque<>();
+    int maxLength = RingBuffer.UNBOUNDED;
+    int next = 0;
+
+    for (int step = 0; step < 2000; step++) {
+      if (random.nextInt(10) == 0) {
+        maxLength = random.nextInt(4) == 0 ? RingBuffer.UNBOUNDED : 1 + random.nextInt(40);
+        track.setMaxLength(maxLength);
+      } else {
+        // Batches longer than the window and longer than several chunks too
+        final List<Integer> batch = new ArrayList<>();
+
+        for (int i = random.nextInt(50); i > 0; i--) {
+          batch.add(next);
+          expected.addLast(next++);
+        }
+
+        track.addAll(batch);
+      }
+
+      while (maxLength != RingBuffer.UNBOUNDED && expected.size() > maxLength) {
+        expected.removeFirst();
+      }
+
+      assertEquals("Step " + step, new ArrayList<>(expected), listener.drawn());
+      assertEquals(expected.size(), track.size());
+    }
+  }
+
+  @Test
+  public void clearDropsEveryChunk() {
+    final RecordingListener listener = new RecordingListener();
+    final PolylineTrack<Integer> track = new PolylineTrack<>(CHUNK_LENGTH, RingBuffer.UNBOUNDED, listener);
+
+    track.addAll(range(0, 99));
+    track.clear();
+
+    assertEquals(0, listener.chunks.size());
+    assertEquals(0, track.chunkCount());
+  }
+
+  private static List<Integer> range(int from, int to) {
+    final List<Integer> list = new ArrayList<>();
+
+    for (int i = from; i <= to; i++) {
+      list.add(i);
+    }
+
+    return list;
+  }
+}
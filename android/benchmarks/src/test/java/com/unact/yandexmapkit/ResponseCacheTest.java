@@ -0,0 +1,92 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+  private static final long NEVER = Long.MAX_VALUE / 2;
+
+  @Test
+  public void evictionMatchesAccessOrderedReference() {
+    final Random random = new Random(7);
+    final ResponseCache cache = new ResponseCache(8, NEVER);
+    final LinkedHashMap<String, Object> reference = new LinkedHashMap<>(16, 0.75f, true);
+
+    for (int step = 0; step < 20000; step++) {
+      final String key = "k" + random.nextInt(20);
+
+      if (random.nextBoolean()) {
+        assertEquals("Step " + step, reference.get(key), cache.get(key));
+      } else {
+        final Object response = step;
+
+        cache.put(key, response);
+        reference.put(key, response);
+
+        if (reference.size() > 8) {
+          final Iterator<Object> eldest = reference.values().iterator();
+          eldest.next();
+          eldest.remove();
+        }
+      }
+
+      assertEquals(reference.size(), cache.getStats().get("count"));
+    }
+  }
+
+  @Test
+  public void expiredEntriesAreMissed() throws InterruptedException {
+    final ResponseCache cache = new ResponseCache(8, 10);
+
+    cache.put("a", 1);
+    assertEquals(1, cache.get("a"));
+
+    Thread.sleep(30);
+
+    assertNull(cache.get("a"));
+
+    final Map<String, Object> stats = cache.getStats();
+    assertEquals(1, stats.get("hitCount"));
+    assertEquals(1, stats.get("missCount"));
+    assertEquals(1, stats.get("expirationCount"));
+    assertEquals(0, stats.get("count"));
+  }
+
+  @Test
+  public void shrinkingDropsLeastRecentlyUsed() {
+    final ResponseCache cache = new ResponseCache(4, NEVER);
+
+    for (int i = 0; i < 4; i++) {
+      cache.put("k" + i, i);
+    }
+
+    cache.get("k0");
+    cache.configure(2, NEVER);
+
+    assertEquals(0, cache.get("k0"));
+    assertEquals(3, cache.get("k3"));
+    assertNull(cache.get("k1"));
+    assertNull(cache.get("k2"));
+
+    cache.configure(0, NEVER);
+    cache.put("k5", 5);
+    assertNull(cache.get("k5"));
+  }
+
+  @Test
+  public void keysQuantizeNearbyCoordinates() {
+    final String key = ResponseCache.key("driving", new double[] { 55.750001, 37.620001 }, ResponseCache.ROUTE_QUANTUM, "");
+
+    assertEquals(key, ResponseCache.key("driving", new double[] { 55.750002, 37.619999 }, ResponseCache.ROUTE_QUANTUM, ""));
+    assertTrue(!key.equals(ResponseCache.key("driving", new double[] { 55.7501, 37.62 }, ResponseCache.ROUTE_QUANTUM, "")));
+    assertTrue(!key.equals(ResponseCache.key("bicycle", new double[] { 55.750001, 37.620001 }, ResponseCache.ROUTE_QUANTUM, "")));
+  }
+}
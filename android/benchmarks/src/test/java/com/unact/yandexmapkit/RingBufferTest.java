@@ -0,0 +1,93 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RingBufferTest {
+  @Test
+  public void randomSequenceMatchesArrayDeque() {
+    final Random random = new Random(2);
+    final RingBuffer<Integer> buffer = new RingBuffer<>(1, RingBuffer.UNBOUNDED);
+    final ArrayDeque<Integer> reference = new ArrayDeque<>();
+    int maxLength = RingBuffer.UNBOUNDED;
+    int next = 0;
+
+    for (int step = 0; step < 20000; step++) {
+      final int operation = random.nextInt(20);
+
+      if (operation == 0) {
+        // Shrinks below and grows above the current size, with the head anywhere in the ring
+        maxLength = random.nextInt(3) == 0 ? RingBuffer.UNBOUNDED : 1 + random.nextInt(50);
+        buffer.setMaxLength(maxLength);
+      } else if (operation < 4) {
+        final List<Integer> batch = new ArrayList<>();
+
+        for (int i = random.nextInt(80); i > 0; i--) {
+          batch.add(next);
+          reference.addLast(next++);
+        }
+
+        buffer.addAll(batch);
+      } else {
+        buffer.add(next);
+        reference.addLast(next++);
+      }
+
+      while (maxLength != RingBuffer.UNBOUNDED && reference.size() > maxLength) {
+        reference.removeFirst();
+      }
+
+      assertSameContents("Step " + step, reference, buffer);
+    }
+  }
+
+  @Test
+  public void boundedBufferWrapsAround() {
+    final RingBuffer<Integer> buffer = new RingBuffer<>(2, 3);
+
+    for (int i = 0; i < 10; i++) {
+      buffer.add(i);
+    }
+
+    assertEquals(Arrays.asList(7, 8, 9), buffer.toList());
+
+    buffer.setMaxLength(2);
+    assertEquals(Arrays.asList(8, 9), buffer.toList());
+
+    buffer.setMaxLength(RingBuffer.UNBOUNDED);
+    buffer.add(10);
+    buffer.add(11);
+    assertEquals(Arrays.asList(8, 9, 10, 11), buffer.toList());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeMaxLengthIsRejected() {
+    new RingBuffer<Integer>(8, RingBuffer.UNBOUNDED).setMaxLength(-1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutsideOfSizeThrows() {
+    final RingBuffer<Integer> buffer = new RingBuffer<>(8, RingBuffer.UNBOUNDED);
+
+    buffer.add(1);
+    buffer.get(1);
+  }
+
+  private static void assertSameContents(String message, ArrayDeque<Integer> reference, RingBuffer<Integer> buffer) {
+    final List<Integer> expected = new ArrayList<>(reference);
+
+    assertEquals(message, expected.size(), buffer.size());
+    assertEquals(message, expected, buffer.toList());
+
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(message, expected.get(i), buffer.get(i));
+    }
+  }
+}
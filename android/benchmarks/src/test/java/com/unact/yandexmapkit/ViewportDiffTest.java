@@ -0,0 +1,84 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ViewportDiffTest {
+  private static final double EPSILON = 1e-9;
+
+  @Test
+  public void exposedPartsCoverTheDifferenceExactly() {
+    final Random random = new Random(5);
+
+    for (int i = 0; i < 10000; i++) {
+      final double[] bounds = randomBox(random);
+      final double[] subtracted = randomBox(random);
+      final List<double[]> exposed = ViewportDiff.subtract(bounds, subtracted);
+
+      for (int j = 0; j < exposed.size(); j++) {
+        final double[] part = exposed.get(j);
+
+        assertTrue("Empty part", part[0] < part[2] && part[1] < part[3]);
+        assertTrue("Part outside of bounds", intersectionArea(part, bounds) >= area(part) - EPSILON);
+        assertEquals("Part overlaps subtracted bounds", 0, intersectionArea(part, subtracted), EPSILON);
+
+        for (int k = j + 1; k < exposed.size(); k++) {
+          assertEquals("Parts overlap", 0, intersectionArea(part, exposed.get(k)), EPSILON);
+        }
+      }
+
+      double exposedArea = 0;
+
+      for (double[] part : exposed) {
+        exposedArea += area(part);
+      }
+
+      assertEquals(area(bounds) - intersectionArea(bounds, subtracted), exposedArea, EPSILON);
+      assertTrue(exposed.size() <= 4);
+    }
+  }
+
+  @Test
+  public void updateExposesWholeBoundsFirstAndNothingWithoutMoves() {
+    final ViewportDiff diff = new ViewportDiff();
+    final double[] bounds = { 55, 37, 56, 38 };
+
+    final List<double[]> first = diff.update(bounds);
+    assertEquals(1, first.size());
+    assertArrayEquals(bounds, first.get(0), 0);
+
+    assertEquals(0, diff.update(bounds).size());
+
+    final List<double[]> shifted = diff.update(new double[] { 55, 37.5, 56, 38.5 });
+    assertEquals(1, shifted.size());
+    assertArrayEquals(new double[] { 55, 38, 56, 38.5 }, shifted.get(0), 0);
+
+    diff.reset();
+    assertEquals(1, diff.update(bounds).size());
+  }
+
+  private static double[] randomBox(Random random) {
+    final double latitude = random.nextInt(20);
+    final double longitude = random.nextInt(20);
+
+    // Integer edges make shared and touching edges common
+    return new double[] { latitude, longitude, latitude + 1 + random.nextInt(10), longitude + 1 + random.nextInt(10) };
+  }
+
+  private static double area(double[] box) {
+    return (box[2] - box[0]) * (box[3] - box[1]);
+  }
+
+  private static double intersectionArea(double[] a, double[] b) {
+    final double height = Math.min(a[2], b[2]) - Math.max(a[0], b[0]);
+    final double width = Math.min(a[3], b[3]) - Math.max(a[1], b[1]);
+
+    return height > 0 && width > 0 ? height * width : 0;
+  }
+}
@@ -0,0 +1,157 @@
+package com.unact.yandexmapkit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualPlacemarkLayerTest {
+  /** Map objects as the map would have them, fails on inconsistent calls */
+  private static final class RecordingMaterializer implements VirtualPlacemarkLayer.Materializer {
+    final Map<Integer, double[]> onMap = new HashMap<>();
+
+    @Override
+    public void materialize(Map<String, Object> params) {
+      final int key = (Integer) params.get("hashCode");
+
+      assertFalse("Materialized twice: " + key, onMap.containsKey(key));
+      onMap.put(key, new double[] { (Double) params.get("latitude"), (Double) params.get("longitude") });
+    }
+
+    @Override
+    public void dematerialize(int key) {
+      assertTrue("Dematerialized while not on the map: " + key, onMap.remove(key) != null);
+    }
+
+    @Override
+    public void movePlacemark(int key, double latitude, double longitude) {
+      assertTrue("Moved while not on the map: " + key, onMap.containsKey(key));
+      onMap.put(key, new double[] { latitude, longitude });
+    }
+  }
+
+  private Random random;
+  private RecordingMaterializer materializer;
+  private VirtualPlacemarkLayer layer;
+  private Map<Integer, double[]> reference;
+  private double[] visible;
+
+  @Before
+  public void setUp() {
+    random = new Random(4);
+    materializer = new RecordingMaterializer();
+    layer = new VirtualPlacemarkLayer(0.5, materializer);
+    reference = new HashMap<>();
+  }
+
+  @Test
+  public void visiblePlacemarksAreAlwaysMaterialized() {
+    for (int step = 0; step < 20000; step++) {
+      final int key = random.nextInt(1000);
+      final int operation = random.nextInt(10);
+
+      if (operation == 0) {
+        setVisible(55 + random.nextDouble() * 2, 37 + random.nextDouble() * 2, 0.05 + random.nextDouble() * 0.5);
+      } else if (operation < 4) {
+        layer.remove(key);
+        reference.remove(key);
+      } else if (operation < 7 && reference.containsKey(key)) {
+        final double[] point = randomPoint();
+        layer.move(key, point[0], point[1]);
+        reference.put(key, point);
+      } else {
+        final double[] point = randomPoint();
+        layer.add(key, params(key, point));
+        reference.put(key, point);
+      }
+
+      assertConsistent("Step " + step);
+    }
+  }
+
+  @Test
+  public void drainReturnsEveryPlacemarkNotOnTheMap() {
+    setVisible(56, 38, 0.2);
+
+    for (int key = 0; key < 1000; key++) {
+      final double[] point = randomPoint();
+      layer.add(key, params(key, point));
+      reference.put(key, point);
+    }
+
+    assertTrue(materializer.onMap.size() > 0 && materializer.onMap.size() < reference.size());
+
+    final Set<Integer> all = new HashSet<>(materializer.onMap.keySet());
+    final List<Map<String, Object>> drained = layer.drain();
+
+    for (Map<String, Object> params : drained) {
+      assertTrue("Drained twice or while on the map", all.add((Integer) params.get("hashCode")));
+    }
+
+    assertEquals(reference.keySet(), all);
+    assertEquals(0, layer.size());
+    assertEquals(0, layer.materializedSize());
+
+    // Drained placemarks are forgotten, camera moves don't touch the map anymore
+    final int onMap = materializer.onMap.size();
+    setVisible(55.2, 37.2, 1);
+    assertEquals(onMap, materializer.onMap.size());
+  }
+
+  private void assertConsistent(String message) {
+    assertEquals(message, reference.size(), layer.size());
+    assertEquals(message, materializer.onMap.size(), layer.materializedSize());
+
+    for (Map.Entry<Integer, double[]> entry : materializer.onMap.entrySet()) {
+      final double[] point = reference.get(entry.getKey());
+
+      assertTrue(message + ": unknown placemark on the map", point != null);
+      assertEquals(message, point[0], entry.getValue()[0], 0);
+      assertEquals(message, point[1], entry.getValue()[1], 0);
+    }
+
+    if (visible == null) {
+      assertTrue(message, materializer.onMap.isEmpty());
+      return;
+    }
+
+    for (Map.Entry<Integer, double[]> entry : reference.entrySet()) {
+      final double[] point = entry.getValue();
+
+      if (
+        point[0] >= visible[0] && point[0] <= visible[2] &&
+        point[1] >= visible[1] && point[1] <= visible[3]
+      ) {
+        assertTrue(message + ": visible placemark is not on the map", materializer.onMap.containsKey(entry.getKey()));
+      }
+    }
+  }
+
+  private void setVisible(double latitude, double longitude, double size) {
+    visible = new double[] { latitude, longitude, latitude + size, longitude + size };
+    layer.onVisibleRegionChanged(visible[0], visible[1], visible[2], visible[3]);
+  }
+
+  private double[] randomPoint() {
+    return new double[] { 54.5 + random.nextDouble() * 3, 36.5 + random.nextDouble() * 3 };
+  }
+
+  private static Map<String, Object> params(int key, double[] point) {
+    final Map<String, Object> params = new HashMap<>();
+
+    params.put("hashCode", key);
+    params.put("latitude", point[0]);
+    params.put("longitude", point[1]);
+
+    return params;
+  }
+}
@@ -0,0 +1,78 @@
+package com.unact.yandexmapkit;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+/**
+ * Decodes raw placemark images, optionally downsampled to a target size.
+ */
+final class BitmapDecoder {
+  static final int ORIGINAL_SIZE = 0;
+
+  private BitmapDecoder() {}
+
+  /**
+   * Decodes image so that neither side is bigger than `maxSize` pixels.
+   * Returns `null` if the image data can't be decoded.
+   */
+  static Bitmap decode(byte[] data, int maxSize, boolean rgb565) {
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+
+    if (rgb565) {
+      options.inPreferredConfig = Bitmap.Config.RGB_565;
+    }
+
+    if (maxSize == ORIGINAL_SIZE) {
+      return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = sampleSize(options.outWidth, options.outHeight, maxSize);
+
+    final Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+    if (bitmap == null) {
+      return null;
+    }
+
+    // inSampleSize only goes in powers of 2, scale the rest exactly
+    final int largestSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+
+    if (largestSide <= maxSize) {
+      return bitmap;
+    }
+
+    final float scale = (float) maxSize / largestSide;
+    final Bitmap scaled = Bitmap.createScaledBitmap(
+      bitmap,
+      Math.max(1, Math.round(bitmap.getWidth() * scale)),
+      Math.max(1, Math.round(bitmap.getHeight() * scale)),
+      true
+    );
+
+    if (scaled != bitmap) {
+      bitmap.recycle();
+    }
+
+    return scaled;
+  }
+
+  // Largest power of 2 which keeps the decoded image at least maxSize on its largest side
+  private static int sampleSize(int width, int height, int maxSize) {
+    final int largestSide = Math.max(width, height);
+    int sampleSize = 1;
+
+    while (largestSide / (sampleSize * 2) >= maxSize) {
+      sampleSize *= 2;
+    }
+
+    return sampleSize;
+  }
+}
@@ -0,0 +1,99 @@
+package com.unact.yandexmapkit;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distances between every source and every destination, packed row by row:
+ * the distance from source `i` to destination `j` is at `i * destinationCount + j`.
+ *
+ * Sources and destinations are packed latitude/longitude pairs.
+ */
+final class DistanceMatrix {
+  /** Smaller matrices are computed on the calling thread, splitting them costs more than it saves */
+  static final int PARALLEL_THRESHOLD = 4096;
+
+  interface Callback {
+    void onComputed(double[] distances);
+
+    void onError(RuntimeException e);
+  }
+
+  private DistanceMatrix() {}
+
+  static double[] compute(double[] sources, double[] destinations, PointGridIndex.Metric metric) {
+    final double[] distances = new double[(sources.length / 2) * (destinations.length / 2)];
+
+    computePairs(sources, destinations, metric, distances, 0, distances.length);
+
+    return distances;
+  }
+
+  /**
+   * Splits pairs into at most `parallelism` chunks and computes them on `executor`.
+   *
+   * `callback` is called once, on the thread which finished the last chunk.
+   */
+  static void computeAsync(
+    final double[] sources,
+    final double[] destinations,
+    final PointGridIndex.Metric metric,
+    Executor executor,
+    int parallelism,
+    final Callback callback
+  ) {
+    final double[] distances = new double[(sources.length / 2) * (destinations.length / 2)];
+    final int chunkCount = Math.max(1, Math.min(parallelism, distances.length));
+    final int pairsPerChunk = (distances.length + chunkCount - 1) / chunkCount;
+    final AtomicInteger remainingChunks = new AtomicInteger(chunkCount);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      final int fromPair = chunk * pairsPerChunk;
+      final int toPair = Math.min(distances.length, fromPair + pairsPerChunk);
+
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            computePairs(sources, destinations, metric, distances, fromPair, toPair);
+          } catch (RuntimeException e) {
+            if (failed.compareAndSet(false, true)) {
+              callback.onError(e);
+            }
+            return;
+          }
+
+          // Decrementing the counter also publishes pairs written by other chunks to this thread
+          if (remainingChunks.decrementAndGet() == 0 && !failed.get()) {
+            callback.onComputed(distances);
+          }
+        }
+      });
+    }
+  }
+
+  private static void computePairs(
+    double[] sources,
+    double[] destinations,
+    PointGridIndex.Metric metric,
+    double[] distances,
+    int fromPair,
+    int toPair
+  ) {
+    final int columnCount = destinations.length / 2;
+
+    for (int pair = fromPair; pair < toPair; pair++) {
+      final int source = pair / columnCount * 2;
+      final int destination = pair % columnCount * 2;
+
+      distances[pair] = metric.distance(
+        sources[source],
+        sources[source + 1],
+        destinations[destination],
+        destinations[destination + 1]
+      );
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.unact.yandexmapkit;
+
+/**
+ * Great circle distance on a spherical Earth, within half a percent of MapKit's.
+ *
+ * Pure Java, so unlike MapKit's `Geo` functions it is safe to call from worker threads.
+ */
+final class HaversineMetric implements PointGridIndex.Metric {
+  private static final double EARTH_RADIUS = 6371000.0;
+
+  @Override
+  public double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+    final double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+    final double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+    final double a = Math.sin(latitudeDelta / 2) * Math.sin(latitudeDelta / 2) +
+      Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) *
+      Math.sin(longitudeDelta / 2) * Math.sin(longitudeDelta / 2);
+
+    return 2 * EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+  }
+}
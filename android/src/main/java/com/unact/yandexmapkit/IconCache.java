@@ -0,0 +1,167 @@
+package com.unact.yandexmapkit;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.yandex.runtime.image.ImageProvider;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of placemark icons with a byte budget.
+ *
+ * Asset icons are keyed by asset name, raw images by a SHA-1 of their bytes,
+ * so identical icons are decoded once and share one `ImageProvider`.
+ *
+ * Raw images are hashed and decoded off the main thread, so all methods are synchronized.
+ */
+final class IconCache {
+  static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+  // Asset images are decoded lazily by MapKit, only the provider itself is held here
+  private static final int ASSET_ENTRY_BYTES = 256;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private static class Entry {
+    final ImageProvider imageProvider;
+    final int byteCount;
+
+    Entry(ImageProvider imageProvider, int byteCount) {
+      this.imageProvider = imageProvider;
+      this.byteCount = byteCount;
+    }
+  }
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long maxBytes;
+  private long bytes;
+  private int hitCount;
+  private int missCount;
+  private int evictionCount;
+
+  IconCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  synchronized ImageProvider fromAsset(Context context, String assetKey) {
+    final String key = "asset:" + assetKey;
+    final Entry entry = get(key);
+
+    if (entry != null) {
+      return entry.imageProvider;
+    }
+
+    final ImageProvider imageProvider = ImageProvider.fromAsset(context, assetKey);
+    put(key, new Entry(imageProvider, ASSET_ENTRY_BYTES));
+
+    return imageProvider;
+  }
+
+  /**
+   * Returns `null` if the image data can't be decoded.
+   * Decoding may take a while, don't call it from the main thread.
+   */
+  ImageProvider fromRawImageData(byte[] rawImageData, int maxSize, boolean rgb565) {
+    final String key = rawImageDataKey(rawImageData) + "@" + maxSize + (rgb565 ? ":565" : "");
+
+    synchronized (this) {
+      final Entry entry = get(key);
+
+      if (entry != null) {
+        return entry.imageProvider;
+      }
+    }
+
+    final Bitmap bitmap = BitmapDecoder.decode(rawImageData, maxSize, rgb565);
+
+    if (bitmap == null) {
+      return null;
+    }
+
+    final ImageProvider imageProvider = ImageProvider.fromBitmap(bitmap);
+
+    synchronized (this) {
+      put(key, new Entry(imageProvider, bitmap.getByteCount()));
+    }
+
+    return imageProvider;
+  }
+
+  synchronized void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    trimToSize();
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  synchronized Map<String, Object> getStats() {
+    final Map<String, Object> stats = new LinkedHashMap<>();
+
+    stats.put("count", entries.size());
+    stats.put("bytes", bytes);
+    stats.put("maxBytes", maxBytes);
+    stats.put("hitCount", hitCount);
+    stats.put("missCount", missCount);
+    stats.put("evictionCount", evictionCount);
+
+    return stats;
+  }
+
+  private Entry get(String key) {
+    final Entry entry = entries.get(key);
+
+    if (entry != null) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+
+    return entry;
+  }
+
+  private void put(String key, Entry entry) {
+    final Entry previous = entries.put(key, entry);
+
+    if (previous != null) {
+      bytes -= previous.byteCount;
+    }
+
+    bytes += entry.byteCount;
+    trimToSize();
+  }
+
+  // Evicted providers stay valid for placemarks which already use them
+  private void trimToSize() {
+    final Iterator<Entry> iterator = entries.values().iterator();
+
+    while (bytes > maxBytes && iterator.hasNext()) {
+      bytes -= iterator.next().byteCount;
+      iterator.remove();
+      evictionCount++;
+    }
+  }
+
+  static String rawImageDataKey(byte[] rawImageData) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(rawImageData);
+      final char[] hex = new char[digest.length * 2];
+
+      for (int i = 0; i < digest.length; i++) {
+        hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+        hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+      }
+
+      return "raw:" + new String(hex);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
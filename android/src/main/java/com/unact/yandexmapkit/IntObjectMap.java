@@ -0,0 +1,257 @@
+package com.unact.yandexmapkit;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing hash map with primitive int keys.
+ *
+ * Used to look map objects up by the Dart side hashCode without boxing keys
+ * or scanning every object on the map. Values must not be null.
+ */
+final class IntObjectMap<V> implements Iterable<V> {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private int[] keys;
+  private Object[] values;
+  private int size;
+  private int threshold;
+
+  IntObjectMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  IntObjectMap(int expectedSize) {
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Approximate shallow heap size of the map itself, not including the values.
+   * Assumes compressed references: 12 byte object headers and 4 byte references.
+   */
+  long footprintBytes() {
+    return 32 + arrayBytes(4, keys.length) + arrayBytes(4, values.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    int slot = find(key);
+    return slot < 0 ? null : (V) values[slot];
+  }
+
+  boolean containsKey(int key) {
+    return find(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  V put(int key, V value) {
+    if (value == null) {
+      throw new NullPointerException("value");
+    }
+
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+
+    if (++size > threshold) {
+      rehash(keys.length << 1);
+    }
+
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  V remove(int key) {
+    int slot = find(key);
+
+    if (slot < 0) {
+      return null;
+    }
+
+    V previous = (V) values[slot];
+    deleteSlot(slot);
+    return previous;
+  }
+
+  void clear() {
+    if (size == 0) {
+      return;
+    }
+
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /** Cursor over keys and values, not valid after the map is modified */
+  Cursor<V> cursor() {
+    return new Cursor<>(this);
+  }
+
+  static final class Cursor<V> {
+    private final IntObjectMap<V> map;
+    private int slot = -1;
+
+    private Cursor(IntObjectMap<V> map) {
+      this.map = map;
+    }
+
+    boolean next() {
+      do {
+        slot++;
+      } while (slot < map.values.length && map.values[slot] == null);
+
+      return slot < map.values.length;
+    }
+
+    int key() {
+      return map.keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    V value() {
+      return (V) map.values[slot];
+    }
+  }
+
+  @Override
+  public Iterator<V> iterator() {
+    return new Iterator<V>() {
+      private int next = advance(0);
+
+      private int advance(int from) {
+        while (from < values.length && values[from] == null) {
+          from++;
+        }
+        return from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < values.length;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public V next() {
+        if (next >= values.length) {
+          throw new NoSuchElementException();
+        }
+
+        V value = (V) values[next];
+        next = advance(next + 1);
+        return value;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private int find(int key) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return -1;
+  }
+
+  // Backward shift deletion keeps probe chains intact without tombstones
+  private void deleteSlot(int slot) {
+    int mask = keys.length - 1;
+    int gap = slot;
+    int current = (slot + 1) & mask;
+
+    while (values[current] != null) {
+      int ideal = mix(keys[current]) & mask;
+
+      if (((current - ideal) & mask) >= ((current - gap) & mask)) {
+        keys[gap] = keys[current];
+        values[gap] = values[current];
+        gap = current;
+      }
+      current = (current + 1) & mask;
+    }
+
+    values[gap] = null;
+    size--;
+  }
+
+  private void rehash(int newCapacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+
+    allocate(newCapacity);
+
+    int mask = newCapacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = mix(oldKeys[i]) & mask;
+
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new Object[capacity];
+    threshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    int capacity = DEFAULT_CAPACITY;
+
+    while (capacity * LOAD_FACTOR < expectedSize) {
+      capacity <<= 1;
+    }
+
+    return capacity;
+  }
+
+  private static long arrayBytes(int elementSize, int length) {
+    return (16 + (long) elementSize * length + 7) & ~7L;
+  }
+
+  // Dart hash codes are often sequential, spread them over the whole table
+  private static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
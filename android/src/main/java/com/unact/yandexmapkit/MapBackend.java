@@ -0,0 +1,31 @@
+package com.unact.yandexmapkit;
+
+import java.util.Map;
+
+/**
+ * Draws map objects registered in `MapCore`.
+ *
+ * Objects are identified by hash codes of their Dart counterparts.
+ * `flush` is called once all changes requested by one method call are made.
+ */
+interface MapBackend {
+  /** Replaces the placemark if there is one with the same key */
+  void addPlacemark(int key, double latitude, double longitude, Map<String, Object> params);
+
+  void movePlacemark(int key, double latitude, double longitude);
+
+  void removePlacemark(int key);
+
+  /** `coordinates` are latitude/longitude pairs, replaces the polyline if there is one with the same key */
+  void addPolyline(int key, double[] coordinates, Map<String, Object> params);
+
+  /** `maxLength` is `null` to keep the current maximum length of the polyline */
+  void appendPolylinePoints(int key, double[] coordinates, Integer maxLength);
+
+  void removePolyline(int key);
+
+  void flush();
+
+  /** Removes every placemark and polyline */
+  void clear();
+}
@@ -0,0 +1,666 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Platform independent part of the map controller.
+ *
+ * Keeps the registry of placemarks with their spatial index, decodes map object parameters,
+ * runs route estimations and paged searches. Drawing, routing, searching and scheduling
+ * are done by backends, so the core runs on a plain JVM with fake backends as well as on a device.
+ *
+ * Not thread safe, all methods and backend listeners are called on one thread.
+ */
+final class MapCore {
+  /** Error code of method calls which were pending when the map was disposed */
+  static final String DISPOSED_ERROR = "DisposedError";
+  static final String DISPOSED_MESSAGE = "Map is disposed";
+
+  /** Sends events to Dart */
+  interface EventSink {
+    void send(String event, Map<String, Object> arguments);
+  }
+
+  /** Answer to a method call which finishes asynchronously */
+  interface Result {
+    void success(Object value);
+
+    void error(String errorCode, String errorMessage);
+  }
+
+  private final MapBackend mapBackend;
+  private final RouterBackend routerBackend;
+  private final SearchBackend searchBackend;
+  private final Scheduler scheduler;
+  private final EventSink eventSink;
+  private final PointGridIndex.Metric metric;
+
+  private final PointGridIndex placemarkIndex = new PointGridIndex();
+  // Hash codes as they came from Dart, keys of the index are truncated to 32 bits
+  private final IntObjectMap<Object> placemarkHashCodes = new IntObjectMap<>();
+  private final IntObjectMap<ModeEstimations> modeEstimations = new IntObjectMap<>();
+  private final IntObjectMap<RouteEstimationBatch> routeEstimationBatches = new IntObjectMap<>();
+  private final IntObjectMap<PagedSearch> pagedSearches = new IntObjectMap<>();
+  private int modeEstimationsCounter = 0;
+
+  MapCore(
+    MapBackend mapBackend,
+    RouterBackend routerBackend,
+    SearchBackend searchBackend,
+    Scheduler scheduler,
+    EventSink eventSink,
+    PointGridIndex.Metric metric
+  ) {
+    this.mapBackend = mapBackend;
+    this.routerBackend = routerBackend;
+    this.searchBackend = searchBackend;
+    this.scheduler = scheduler;
+    this.eventSink = eventSink;
+    this.metric = metric;
+  }
+
+  int placemarkCount() {
+    return placemarkIndex.size();
+  }
+
+  void addPlacemarks(List<Map<String, Object>> params) {
+    for (Map<String, Object> placemarkParams : params) {
+      addPlacemarkParams(placemarkParams);
+    }
+
+    mapBackend.flush();
+  }
+
+  void addPlacemark(Map<String, Object> params) {
+    addPlacemarkParams(params);
+    mapBackend.flush();
+  }
+
+  void removePlacemarks(List<Object> hashCodes) {
+    for (Object hashCode : hashCodes) {
+      int key = hashCodeKey(hashCode);
+
+      placemarkIndex.remove(key);
+      placemarkHashCodes.remove(key);
+      mapBackend.removePlacemark(key);
+    }
+
+    mapBackend.flush();
+  }
+
+  /** Placemarks which were never added or were already removed are skipped */
+  void updatePlacemarkPoints(List<Map<String, Object>> params) {
+    for (Map<String, Object> pointParams : params) {
+      int key = hashCodeKey(pointParams.get("hashCode"));
+      double latitude = ((Double) pointParams.get("latitude"));
+      double longitude = ((Double) pointParams.get("longitude"));
+
+      if (placemarkIndex.contains(key)) {
+        placemarkIndex.put(key, latitude, longitude);
+        mapBackend.movePlacemark(key, latitude, longitude);
+      }
+    }
+
+    mapBackend.flush();
+  }
+
+  List<Object> queryPlacemarksInBounds(Map<String, Object> params) {
+    final List<Object> hashCodes = new ArrayList<>();
+
+    placemarkIndex.query(
+      ((Double) params.get("southWestLatitude")),
+      ((Double) params.get("southWestLongitude")),
+      ((Double) params.get("northEastLatitude")),
+      ((Double) params.get("northEastLongitude")),
+      new PointGridIndex.Visitor() {
+        @Override
+        public void visit(int id, double latitude, double longitude) {
+          hashCodes.add(placemarkHashCodes.get(id));
+        }
+      }
+    );
+
+    return hashCodes;
+  }
+
+  List<Map<String, Object>> nearestPlacemarks(Map<String, Object> params) {
+    return serializeNeighbours(placemarkIndex.nearest(
+      ((Double) params.get("latitude")),
+      ((Double) params.get("longitude")),
+      ((Number) params.get("count")).intValue(),
+      metric
+    ));
+  }
+
+  List<Map<String, Object>> placemarksWithinRadius(Map<String, Object> params) {
+    return serializeNeighbours(placemarkIndex.withinRadius(
+      ((Double) params.get("latitude")),
+      ((Double) params.get("longitude")),
+      ((Double) params.get("radius")),
+      metric
+    ));
+  }
+
+  void addPolyline(Map<String, Object> params) {
+    mapBackend.addPolyline(hashCodeKey(params.get("hashCode")), polylineCoordinates(params), params);
+    mapBackend.flush();
+  }
+
+  /** Throws `IllegalArgumentException` if `maxLength` is set and not positive */
+  void appendPolylinePoints(Map<String, Object> params) {
+    final Integer maxLength = (Integer) params.get("maxLength");
+
+    if (maxLength != null && maxLength <= 0) {
+      throw new IllegalArgumentException("maxLength must be positive: " + maxLength);
+    }
+
+    mapBackend.appendPolylinePoints(
+      hashCodeKey(params.get("hashCode")),
+      PackedCoordinates.toDoubles(params.get("packedCoordinates")),
+      maxLength
+    );
+    mapBackend.flush();
+  }
+
+  void removePolyline(Map<String, Object> params) {
+    mapBackend.removePolyline(hashCodeKey(params.get("hashCode")));
+    mapBackend.flush();
+  }
+
+  void clear() {
+    placemarkIndex.clear();
+    placemarkHashCodes.clear();
+    mapBackend.clear();
+  }
+
+  /** Answers with estimations by mode once every mode is estimated or when the timeout passes */
+  @SuppressWarnings("unchecked")
+  void estimateAllModes(Map<String, Object> params, Result result) {
+    final ModeEstimations estimations = new ModeEstimations(++modeEstimationsCounter, result);
+
+    modeEstimations.put(estimations.id, estimations);
+    estimations.start(
+      coordinates((List<Map<String, Object>>) params.get("points")),
+      (List<String>) params.get("modes"),
+      ((Number) params.get("timeout")).longValue()
+    );
+  }
+
+  @SuppressWarnings("unchecked")
+  void estimateRouteBatch(Map<String, Object> params) {
+    final RouteEstimationBatch batch = new RouteEstimationBatch(
+      ((Number) params.get("batchId")).intValue(),
+      (String) params.get("mode"),
+      coordinates((List<Map<String, Object>>) params.get("origins")),
+      coordinates(Collections.singletonList((Map<String, Object>) params.get("destination"))),
+      ((Number) params.get("maxConcurrency")).intValue(),
+      ((Number) params.get("timeout")).longValue()
+    );
+
+    cancelRouteEstimationBatch(batch.batchId);
+    routeEstimationBatches.put(batch.batchId, batch);
+    batch.startNext();
+  }
+
+  void cancelRouteEstimationBatch(int batchId) {
+    final RouteEstimationBatch batch = routeEstimationBatches.remove(batchId);
+
+    if (batch != null) {
+      batch.cancel();
+    }
+  }
+
+  /**
+   * Starts a search which keeps its session to load further pages.
+   *
+   * Without `stream` the first page answers `result` and next pages are requested
+   * with `fetchNextSearchPage`, with `stream` every page is sent with `onSearchPage`
+   * and the next one is requested right away.
+   */
+  void searchPaged(Map<String, Object> params, Result result) {
+    final boolean stream = Boolean.TRUE.equals(params.get("stream"));
+    final Number maxPages = (Number) params.get("maxPages");
+    final PagedSearch search = new PagedSearch(
+      ((Number) params.get("searchId")).intValue(),
+      stream,
+      maxPages != null ? maxPages.intValue() : 0
+    );
+
+    closePagedSearch(search.searchId);
+    pagedSearches.put(search.searchId, search);
+
+    if (!stream) {
+      search.pendingResult = result;
+    }
+
+    search.session = searchBackend.submit((String) params.get("query"), params, search);
+
+    if (stream) {
+      result.success(null);
+    }
+  }
+
+  /** Answers with `null` if there is no next page or it is already loading */
+  void fetchNextSearchPage(int searchId, Result result) {
+    final PagedSearch search = pagedSearches.get(searchId);
+
+    if (search == null || search.stream || search.pendingResult != null || !search.session.hasNextPage()) {
+      result.success(null);
+      return;
+    }
+
+    search.pendingResult = result;
+    search.session.fetchNextPage(search);
+  }
+
+  void closePagedSearch(int searchId) {
+    final PagedSearch search = pagedSearches.remove(searchId);
+
+    if (search == null) {
+      return;
+    }
+
+    search.session.cancel();
+
+    if (search.pendingResult != null) {
+      search.pendingResult.success(null);
+      search.pendingResult = null;
+    }
+  }
+
+  /**
+   * Cancels all estimations and searches, pending method calls are answered with `DISPOSED_ERROR`,
+   * so Dart futures waiting for them don't keep the map alive.
+   */
+  void cancelAll() {
+    for (ModeEstimations estimations : modeEstimations) {
+      estimations.cancel();
+      estimations.result.error(DISPOSED_ERROR, DISPOSED_MESSAGE);
+    }
+
+    modeEstimations.clear();
+
+    for (RouteEstimationBatch batch : routeEstimationBatches) {
+      batch.cancel();
+    }
+
+    routeEstimationBatches.clear();
+
+    for (PagedSearch search : pagedSearches) {
+      search.session.cancel();
+
+      if (search.pendingResult != null) {
+        search.pendingResult.error(DISPOSED_ERROR, DISPOSED_MESSAGE);
+        search.pendingResult = null;
+      }
+    }
+
+    pagedSearches.clear();
+  }
+
+  /** Cancels everything in flight and removes all objects, so nothing scheduled keeps the core alive */
+  void dispose() {
+    cancelAll();
+    clear();
+  }
+
+  // Dart hash codes come as Integer or as Long if they don't fit in 32 bits
+  static int hashCodeKey(Object hashCode) {
+    return ((Number) hashCode).intValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  static double[] polylineCoordinates(Map<String, Object> params) {
+    Object packedCoordinates = params.get("packedCoordinates");
+
+    if (packedCoordinates != null) {
+      return PackedCoordinates.toDoubles(packedCoordinates);
+    }
+
+    return coordinates((List<Map<String, Object>>) params.get("coordinates"));
+  }
+
+  /** Latitude/longitude pairs of points sent as maps */
+  static double[] coordinates(List<Map<String, Object>> points) {
+    final double[] coordinates = new double[points.size() * 2];
+
+    for (int i = 0; i < points.size(); i++) {
+      coordinates[i * 2] = (Double) points.get(i).get("latitude");
+      coordinates[i * 2 + 1] = (Double) points.get(i).get("longitude");
+    }
+
+    return coordinates;
+  }
+
+  private void addPlacemarkParams(Map<String, Object> params) {
+    final int key = hashCodeKey(params.get("hashCode"));
+    final double latitude = ((Double) params.get("latitude"));
+    final double longitude = ((Double) params.get("longitude"));
+
+    placemarkIndex.put(key, latitude, longitude);
+    placemarkHashCodes.put(key, params.get("hashCode"));
+    mapBackend.addPlacemark(key, latitude, longitude, params);
+  }
+
+  private List<Map<String, Object>> serializeNeighbours(List<PointGridIndex.Neighbour> neighbours) {
+    List<Map<String, Object>> result = new ArrayList<>(neighbours.size());
+
+    for (PointGridIndex.Neighbour neighbour : neighbours) {
+      Map<String, Object> neighbourMap = new HashMap<>();
+      neighbourMap.put("hashCode", placemarkHashCodes.get(neighbour.id));
+      neighbourMap.put("distance", neighbour.distance);
+      result.add(neighbourMap);
+    }
+
+    return result;
+  }
+
+  /**
+   * Collects estimations of several modes requested at once.
+   *
+   * Answers once every mode is estimated or when the deadline passes,
+   * cancelling modes which are still in flight.
+   */
+  private class ModeEstimations implements Runnable {
+    final int id;
+    final Result result;
+    final Map<String, Object> estimations = new HashMap<>();
+    final List<RouterBackend.Request> requests = new ArrayList<>();
+    int remaining;
+    boolean finished = false;
+
+    ModeEstimations(int id, Result result) {
+      this.id = id;
+      this.result = result;
+    }
+
+    void start(double[] waypoints, List<String> modes, long timeout) {
+      remaining = modes.size();
+
+      if (remaining == 0) {
+        finish();
+        return;
+      }
+
+      scheduler.postDelayed(this, timeout);
+
+      for (final String mode : modes) {
+        final RouterBackend.Listener listener = new RouterBackend.Listener() {
+          @Override
+          public void onEstimation(Map<String, Object> estimation) {
+            if (!finished) {
+              estimations.put(mode, estimation);
+              onModeFinished();
+            }
+          }
+
+          @Override
+          public void onError(String error) {
+            if (!finished) {
+              onModeFinished();
+            }
+          }
+        };
+
+        // Unknown modes fail like modes without routes instead of failing the whole call
+        try {
+          requests.add(routerBackend.estimate(mode, waypoints, listener));
+        } catch (IllegalArgumentException e) {
+          listener.onError(e.getMessage());
+        }
+      }
+    }
+
+    // Deadline
+    @Override
+    public void run() {
+      cancelRequests();
+      finish();
+    }
+
+    void cancel() {
+      finished = true;
+      scheduler.cancel(this);
+      cancelRequests();
+    }
+
+    private void cancelRequests() {
+      for (RouterBackend.Request request : requests) {
+        request.cancel();
+      }
+    }
+
+    private void onModeFinished() {
+      if (--remaining == 0) {
+        finish();
+      }
+    }
+
+    private void finish() {
+      if (finished) {
+        return;
+      }
+
+      finished = true;
+      scheduler.cancel(this);
+      modeEstimations.remove(id);
+      result.success(estimations);
+    }
+  }
+
+  /**
+   * Estimates routes from many origins to one destination, at most `maxConcurrency` at a time.
+   *
+   * Every estimation is sent to Dart as soon as it finishes, fails or times out,
+   * followed by a final event once the whole batch is done.
+   */
+  private class RouteEstimationBatch {
+    final int batchId;
+    final String mode;
+    final double[] origins;
+    final double[] destination;
+    final int maxConcurrency;
+    final long timeout;
+    final List<Item> runningItems = new ArrayList<>();
+    int nextIndex = 0;
+    boolean starting = false;
+    boolean cancelled = false;
+
+    RouteEstimationBatch(
+      int batchId,
+      String mode,
+      double[] origins,
+      double[] destination,
+      int maxConcurrency,
+      long timeout
+    ) {
+      this.batchId = batchId;
+      this.mode = mode;
+      this.origins = origins;
+      this.destination = destination;
+      this.maxConcurrency = Math.max(1, maxConcurrency);
+      this.timeout = timeout;
+    }
+
+    int size() {
+      return origins.length / 2;
+    }
+
+    void startNext() {
+      // Cached estimations finish synchronously and call this again
+      if (starting || cancelled) {
+        return;
+      }
+
+      starting = true;
+
+      while (runningItems.size() < maxConcurrency && nextIndex < size()) {
+        final Item item = new Item(nextIndex++);
+        final double[] waypoints = {
+          origins[item.index * 2],
+          origins[item.index * 2 + 1],
+          destination[0],
+          destination[1]
+        };
+
+        runningItems.add(item);
+        scheduler.postDelayed(item, timeout);
+
+        try {
+          item.request = routerBackend.estimate(mode, waypoints, item);
+        } catch (IllegalArgumentException e) {
+          item.onError(e.getMessage());
+        }
+      }
+
+      starting = false;
+
+      if (runningItems.isEmpty() && nextIndex >= size()) {
+        routeEstimationBatches.remove(batchId);
+
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("batchId", batchId);
+        eventSink.send("onRouteEstimationBatchDone", arguments);
+      }
+    }
+
+    void cancel() {
+      cancelled = true;
+
+      for (Item item : runningItems) {
+        scheduler.cancel(item);
+
+        if (item.request != null) {
+          item.request.cancel();
+        }
+      }
+
+      runningItems.clear();
+    }
+
+    /** Listener of one estimation, also run as its timeout */
+    private class Item implements RouterBackend.Listener, Runnable {
+      final int index;
+      RouterBackend.Request request;
+      boolean finished = false;
+
+      Item(int index) {
+        this.index = index;
+      }
+
+      @Override
+      public void onEstimation(Map<String, Object> estimation) {
+        finish(estimation, null, false);
+      }
+
+      @Override
+      public void onError(String error) {
+        finish(null, error, false);
+      }
+
+      @Override
+      public void run() {
+        if (request != null) {
+          request.cancel();
+        }
+
+        finish(null, null, true);
+      }
+
+      private void finish(Object estimation, String error, boolean timedOut) {
+        if (finished || cancelled) {
+          return;
+        }
+
+        finished = true;
+        scheduler.cancel(this);
+        runningItems.remove(this);
+
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("batchId", batchId);
+        arguments.put("index", index);
+        arguments.put("estimation", estimation);
+        arguments.put("error", error);
+        arguments.put("timedOut", timedOut);
+        eventSink.send("onRouteEstimationBatchResult", arguments);
+
+        startNext();
+      }
+    }
+  }
+
+  private class PagedSearch implements SearchBackend.Listener {
+    final int searchId;
+    final boolean stream;
+    final int maxPages;
+    int pageCount = 0;
+    SearchBackend.Session session;
+    Result pendingResult;
+
+    PagedSearch(int searchId, boolean stream, int maxPages) {
+      this.searchId = searchId;
+      this.stream = stream;
+      this.maxPages = maxPages;
+    }
+
+    @Override
+    public void onResponse(List<Map<String, Object>> items) {
+      // Closed searches could still get a response which was already on its way
+      if (pagedSearches.get(searchId) != this) {
+        return;
+      }
+
+      pageCount++;
+
+      final boolean hasNextPage = session.hasNextPage() && (maxPages <= 0 || pageCount < maxPages);
+      final Map<String, Object> page = new HashMap<>();
+
+      page.put("searchId", searchId);
+      page.put("items", items);
+      page.put("hasNextPage", hasNextPage);
+
+      // Sessions without further pages are not needed anymore
+      if (!hasNextPage) {
+        pagedSearches.remove(searchId);
+      }
+
+      if (stream) {
+        eventSink.send("onSearchPage", page);
+
+        if (hasNextPage) {
+          session.fetchNextPage(this);
+        }
+      } else {
+        final Result result = pendingResult;
+
+        pendingResult = null;
+        result.success(page);
+      }
+    }
+
+    @Override
+    public void onError(String error) {
+      if (pagedSearches.get(searchId) != this) {
+        return;
+      }
+
+      pagedSearches.remove(searchId);
+
+      if (stream) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("searchId", searchId);
+        arguments.put("error", error);
+        eventSink.send("onSearchPageError", arguments);
+      } else {
+        final Result result = pendingResult;
+
+        pendingResult = null;
+        result.error("SearchError", error);
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.unact.yandexmapkit;
+
+import android.content.Context;
+
+import com.yandex.mapkit.MapKitFactory;
+import com.yandex.mapkit.directions.DirectionsFactory;
+import com.yandex.mapkit.directions.driving.DrivingRouter;
+import com.yandex.mapkit.search.SearchFactory;
+import com.yandex.mapkit.search.SearchManager;
+import com.yandex.mapkit.search.SearchManagerType;
+import com.yandex.mapkit.transport.TransportFactory;
+import com.yandex.mapkit.transport.bicycle.BicycleRouter;
+import com.yandex.mapkit.transport.masstransit.MasstransitRouter;
+import com.yandex.mapkit.transport.masstransit.PedestrianRouter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * MapKit services shared by all map views in the process, whichever plugin registration created them.
+ *
+ * MapKit is started while at least one map view is alive. Routers, the search manager,
+ * response and icon caches and worker threads are created on first use and shared by every view,
+ * so opening another map costs only its own `MapView`. Everything is released with the last view.
+ *
+ * Used on the main thread only, except for the icon cache which is thread safe.
+ */
+final class MapServices {
+  private final Context context;
+  private int mapCount = 0;
+  private boolean mapKitInitialized = false;
+  private boolean transportInitialized = false;
+  private boolean directionsInitialized = false;
+  private boolean searchInitialized = false;
+
+  private MasstransitRouter masstransitRouter;
+  private PedestrianRouter pedestrianRouter;
+  private BicycleRouter bicycleRouter;
+  private DrivingRouter drivingRouter;
+  private SearchManager searchManager;
+  private ExecutorService iconDecodeExecutor;
+  private ExecutorService computeExecutor;
+
+  final int computeParallelism = Runtime.getRuntime().availableProcessors();
+  final IconCache iconCache = new IconCache(IconCache.DEFAULT_MAX_BYTES);
+  final ResponseCache routeCache = new ResponseCache(
+    ResponseCache.DEFAULT_MAX_ENTRIES,
+    ResponseCache.DEFAULT_TTL_MILLIS
+  );
+  final ResponseCache searchCache = new ResponseCache(
+    ResponseCache.DEFAULT_MAX_ENTRIES,
+    ResponseCache.DEFAULT_TTL_MILLIS
+  );
+
+  MapServices(Context context) {
+    this.context = context.getApplicationContext();
+  }
+
+  /** Initializes MapKit, called before creating a `MapView` */
+  void initializeMapKit() {
+    if (!mapKitInitialized) {
+      MapKitFactory.initialize(context);
+      mapKitInitialized = true;
+    }
+  }
+
+  /** Starts MapKit when the first map view is created */
+  void acquire() {
+    initializeMapKit();
+
+    if (mapCount++ == 0) {
+      MapKitFactory.getInstance().onStart();
+    }
+  }
+
+  /** Stops MapKit and releases shared services when the last map view is disposed */
+  void release() {
+    if (mapCount == 0 || --mapCount > 0) {
+      return;
+    }
+
+    MapKitFactory.getInstance().onStop();
+
+    masstransitRouter = null;
+    pedestrianRouter = null;
+    bicycleRouter = null;
+    drivingRouter = null;
+    searchManager = null;
+
+    if (iconDecodeExecutor != null) {
+      iconDecodeExecutor.shutdownNow();
+      iconDecodeExecutor = null;
+    }
+
+    if (computeExecutor != null) {
+      computeExecutor.shutdownNow();
+      computeExecutor = null;
+    }
+
+    iconCache.clear();
+    routeCache.clear();
+    searchCache.clear();
+  }
+
+  MasstransitRouter getMasstransitRouter() {
+    if (masstransitRouter == null) {
+      masstransitRouter = getTransportFactory().createMasstransitRouter();
+    }
+
+    return masstransitRouter;
+  }
+
+  PedestrianRouter getPedestrianRouter() {
+    if (pedestrianRouter == null) {
+      pedestrianRouter = getTransportFactory().createPedestrianRouter();
+    }
+
+    return pedestrianRouter;
+  }
+
+  BicycleRouter getBicycleRouter() {
+    if (bicycleRouter == null) {
+      bicycleRouter = getTransportFactory().createBicycleRouter();
+    }
+
+    return bicycleRouter;
+  }
+
+  DrivingRouter getDrivingRouter() {
+    if (drivingRouter == null) {
+      if (!directionsInitialized) {
+        DirectionsFactory.initialize(context);
+        directionsInitialized = true;
+      }
+
+      drivingRouter = DirectionsFactory.getInstance().createDrivingRouter();
+    }
+
+    return drivingRouter;
+  }
+
+  SearchManager getSearchManager() {
+    if (searchManager == null) {
+      if (!searchInitialized) {
+        SearchFactory.initialize(context);
+        searchInitialized = true;
+      }
+
+      searchManager = SearchFactory.getInstance().createSearchManager(SearchManagerType.COMBINED);
+    }
+
+    return searchManager;
+  }
+
+  ExecutorService getIconDecodeExecutor() {
+    if (iconDecodeExecutor == null) {
+      iconDecodeExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    return iconDecodeExecutor;
+  }
+
+  ExecutorService getComputeExecutor() {
+    if (computeExecutor == null) {
+      computeExecutor = Executors.newFixedThreadPool(computeParallelism);
+    }
+
+    return computeExecutor;
+  }
+
+  private TransportFactory getTransportFactory() {
+    if (!transportInitialized) {
+      TransportFactory.initialize(context);
+      transportInitialized = true;
+    }
+
+    return TransportFactory.getInstance();
+  }
+}
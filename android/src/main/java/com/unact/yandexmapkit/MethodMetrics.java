@@ -0,0 +1,329 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Call counts, latency histograms and payload sizes of platform channel methods,
+ * plus durations of router and search sessions.
+ *
+ * Recording durations costs a couple of array increments, so it is always on.
+ * Payload sizes need a walk over every argument and result, so they are only counted when enabled.
+ * Not thread safe, used on the main thread only.
+ */
+final class MethodMetrics {
+  /**
+   * Histogram of durations in microseconds with logarithmic buckets.
+   *
+   * Every power of two is split into 8 buckets, so percentiles are off by at most 12.5%
+   * while the histogram takes a fixed amount of memory for any number of samples.
+   */
+  static final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKET_COUNT = EXACT_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long max;
+
+    void record(long micros) {
+      final long value = Math.max(0, micros);
+
+      buckets[bucketIndex(value)]++;
+      count++;
+      max = Math.max(max, value);
+    }
+
+    long count() {
+      return count;
+    }
+
+    long max() {
+      return max;
+    }
+
+    /** Upper bound of the bucket holding the `quantile` of samples, zero if there are none */
+    long percentile(double quantile) {
+      if (count == 0) {
+        return 0;
+      }
+
+      final long target = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += buckets[i];
+
+        if (seen >= target) {
+          return Math.min(max, bucketUpperBound(i));
+        }
+      }
+
+      return max;
+    }
+
+    Map<String, Object> serialize() {
+      final Map<String, Object> arguments = new HashMap<>();
+
+      arguments.put("count", count);
+      arguments.put("p50", percentile(0.5));
+      arguments.put("p95", percentile(0.95));
+      arguments.put("p99", percentile(0.99));
+      arguments.put("max", max);
+
+      return arguments;
+    }
+
+    private static int bucketIndex(long value) {
+      if (value < EXACT_LIMIT) {
+        return (int) value;
+      }
+
+      final int exponent = 63 - Long.numberOfLeadingZeros(value);
+      final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+      return EXACT_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+      if (index < EXACT_LIMIT) {
+        return index;
+      }
+
+      final int exponent = (index - EXACT_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+      final long subBucket = (index - EXACT_LIMIT) % SUB_BUCKETS;
+      final int shift = exponent - SUB_BUCKET_BITS;
+
+      return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+  }
+
+  private static final class MethodStats {
+    final Histogram latency = new Histogram();
+    final Histogram responseLatency = new Histogram();
+    long errorCount;
+    long argumentBytes;
+    long resultBytes;
+  }
+
+  private final Map<String, MethodStats> methods = new HashMap<>();
+  private final Map<String, Histogram> sessions = new HashMap<>();
+  private long resetAt = System.nanoTime();
+  private boolean payloadSizes = false;
+
+  void setPayloadSizes(boolean enabled) {
+    payloadSizes = enabled;
+  }
+
+  /** Time spent in the method call handler itself */
+  void recordCall(String method, long nanos, Object arguments) {
+    final MethodStats stats = methodStats(method);
+
+    stats.latency.record(nanos / 1000);
+
+    if (payloadSizes) {
+      stats.argumentBytes += payloadSize(arguments);
+    }
+  }
+
+  /** Time from the method call until its answer, which is later than the handler returns for async methods */
+  void recordResult(String method, long nanos, Object result, boolean error) {
+    final MethodStats stats = methodStats(method);
+
+    stats.responseLatency.record(nanos / 1000);
+
+    if (payloadSizes) {
+      stats.resultBytes += payloadSize(result);
+    }
+
+    if (error) {
+      stats.errorCount++;
+    }
+  }
+
+  /** Time from submitting a router or search request until its listener is called */
+  void recordSession(String session, long nanos) {
+    Histogram histogram = sessions.get(session);
+
+    if (histogram == null) {
+      histogram = new Histogram();
+      sessions.put(session, histogram);
+    }
+
+    histogram.record(nanos / 1000);
+  }
+
+  void reset() {
+    methods.clear();
+    sessions.clear();
+    resetAt = System.nanoTime();
+  }
+
+  /** All durations are in microseconds and payload sizes are in bytes */
+  Map<String, Object> serialize() {
+    final Map<String, Object> methodsArguments = new HashMap<>();
+
+    for (Map.Entry<String, MethodStats> entry : methods.entrySet()) {
+      final MethodStats stats = entry.getValue();
+      final Map<String, Object> arguments = new HashMap<>();
+
+      arguments.put("latency", stats.latency.serialize());
+      arguments.put("responseLatency", stats.responseLatency.serialize());
+      arguments.put("errorCount", stats.errorCount);
+      arguments.put("argumentBytes", stats.argumentBytes);
+      arguments.put("resultBytes", stats.resultBytes);
+      methodsArguments.put(entry.getKey(), arguments);
+    }
+
+    final Map<String, Object> sessionsArguments = new HashMap<>();
+
+    for (Map.Entry<String, Histogram> entry : sessions.entrySet()) {
+      sessionsArguments.put(entry.getKey(), entry.getValue().serialize());
+    }
+
+    final Map<String, Object> arguments = new HashMap<>();
+
+    arguments.put("methods", methodsArguments);
+    arguments.put("sessions", sessionsArguments);
+    arguments.put("elapsed", (System.nanoTime() - resetAt) / 1000);
+
+    return arguments;
+  }
+
+  /** One line per method and session, the busiest ones first */
+  String dump() {
+    final List<Map.Entry<String, MethodStats>> entries = new ArrayList<>(methods.entrySet());
+
+    Collections.sort(entries, new Comparator<Map.Entry<String, MethodStats>>() {
+      @Override
+      public int compare(Map.Entry<String, MethodStats> e1, Map.Entry<String, MethodStats> e2) {
+        return Long.compare(e2.getValue().latency.count(), e1.getValue().latency.count());
+      }
+    });
+
+    final StringBuilder builder = new StringBuilder();
+
+    builder.append("elapsed=").append((System.nanoTime() - resetAt) / 1000000).append("ms");
+
+    for (Map.Entry<String, MethodStats> entry : entries) {
+      final MethodStats stats = entry.getValue();
+
+      builder.append('\n').append(entry.getKey());
+      appendHistogram(builder, stats.latency);
+      builder.append(" response");
+      appendHistogram(builder, stats.responseLatency);
+      builder
+        .append(" errors=").append(stats.errorCount)
+        .append(" args=").append(stats.argumentBytes).append('B')
+        .append(" results=").append(stats.resultBytes).append('B');
+    }
+
+    for (Map.Entry<String, Histogram> entry : sessions.entrySet()) {
+      builder.append("\nsession ").append(entry.getKey());
+      appendHistogram(builder, entry.getValue());
+    }
+
+    return builder.toString();
+  }
+
+  /** Approximate size of the value encoded with the standard message codec */
+  static long payloadSize(Object value) {
+    if (value == null || value instanceof Boolean) {
+      return 1;
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return 5;
+    } else if (value instanceof Number) {
+      return 9;
+    } else if (value instanceof String) {
+      return sizedPayload(utf8Length((String) value));
+    } else if (value instanceof byte[]) {
+      return sizedPayload(((byte[]) value).length);
+    } else if (value instanceof int[]) {
+      return sizedPayload(((int[]) value).length * 4);
+    } else if (value instanceof long[]) {
+      return sizedPayload(((long[]) value).length * 8);
+    } else if (value instanceof double[]) {
+      return sizedPayload(((double[]) value).length * 8);
+    } else if (value instanceof List) {
+      final List<?> list = (List<?>) value;
+      long size = 1 + sizeSize(list.size());
+
+      for (Object element : list) {
+        size += payloadSize(element);
+      }
+
+      return size;
+    } else if (value instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) value;
+      long size = 1 + sizeSize(map.size());
+
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        size += payloadSize(entry.getKey()) + payloadSize(entry.getValue());
+      }
+
+      return size;
+    }
+
+    return 1;
+  }
+
+  private MethodStats methodStats(String method) {
+    MethodStats stats = methods.get(method);
+
+    if (stats == null) {
+      stats = new MethodStats();
+      methods.put(method, stats);
+    }
+
+    return stats;
+  }
+
+  private static void appendHistogram(StringBuilder builder, Histogram histogram) {
+    builder
+      .append(" count=").append(histogram.count())
+      .append(" p50=").append(histogram.percentile(0.5)).append("us")
+      .append(" p95=").append(histogram.percentile(0.95)).append("us")
+      .append(" p99=").append(histogram.percentile(0.99)).append("us")
+      .append(" max=").append(histogram.max()).append("us");
+  }
+
+  // Strings are sent as UTF-8
+  private static long utf8Length(String string) {
+    final int length = string.length();
+    long utf8Length = length;
+
+    for (int i = 0; i < length; i++) {
+      final char c = string.charAt(i);
+
+      if (c >= 0x800) {
+        // Surrogate pairs take 4 bytes for 2 chars, other chars from here on take 3
+        utf8Length += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        utf8Length += 1;
+      }
+    }
+
+    return utf8Length;
+  }
+
+  // Type byte, size and content
+  private static long sizedPayload(long contentSize) {
+    return 1 + sizeSize(contentSize) + contentSize;
+  }
+
+  private static int sizeSize(long size) {
+    if (size < 254) {
+      return 1;
+    } else if (size <= 0xffff) {
+      return 3;
+    }
+
+    return 5;
+  }
+}
@@ -0,0 +1,48 @@
+package com.unact.yandexmapkit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Decodes coordinates sent from Dart as one flat list of latitude/longitude pairs.
+ *
+ * A `Float64List` arrives as `double[]`, raw little endian bytes as `byte[]`.
+ * Decoding does not depend on MapKit, callers create points from the pairs themselves.
+ */
+final class PackedCoordinates {
+  private PackedCoordinates() {}
+
+  static double[] toDoubles(Object packed) {
+    if (packed instanceof double[]) {
+      checkLength(((double[]) packed).length);
+      return (double[]) packed;
+    }
+
+    if (packed instanceof byte[]) {
+      return toDoubles((byte[]) packed);
+    }
+
+    throw new IllegalArgumentException("Unsupported packed coordinates: " + packed);
+  }
+
+  static double[] toDoubles(byte[] packed) {
+    if (packed.length % 8 != 0) {
+      throw new IllegalArgumentException("Packed coordinates byte length must be a multiple of 8");
+    }
+
+    final DoubleBuffer buffer = ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    final double[] doubles = new double[buffer.remaining()];
+
+    checkLength(doubles.length);
+    buffer.get(doubles);
+
+    return doubles;
+  }
+
+  private static void checkLength(int length) {
+    if (length % 2 != 0) {
+      throw new IllegalArgumentException("Packed coordinates must contain latitude/longitude pairs");
+    }
+  }
+}
@@ -0,0 +1,350 @@
+package com.unact.yandexmapkit;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import com.yandex.mapkit.geometry.Point;
+import com.yandex.mapkit.map.MapObject;
+import com.yandex.mapkit.map.MapObjectCollection;
+import com.yandex.mapkit.map.MapObjectTapListener;
+import com.yandex.mapkit.map.PlacemarkMapObject;
+import com.yandex.runtime.image.ImageProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups placemarks into a screen space grid for the current integer zoom.
+ *
+ * Every grid cell with at least `minClusterSize` placemarks hides them and
+ * shows one cluster placemark with their count instead.
+ * Grid cells depend only on the zoom, so panning the map does not recompute anything
+ * and adding, moving or removing a placemark only refreshes the cells it touches.
+ */
+final class PlacemarkClusterer {
+  interface ClusterTapListener {
+    void onClusterTap(List<Object> hashCodes, Point point);
+  }
+
+  private static class Member {
+    final int key;
+    final PlacemarkMapObject placemark;
+    double latitude;
+    double longitude;
+    Cell cell;
+
+    Member(int key, PlacemarkMapObject placemark) {
+      this.key = key;
+      this.placemark = placemark;
+    }
+  }
+
+  private static class Cell {
+    final long key;
+    final IntObjectMap<Member> members = new IntObjectMap<>();
+    double latitudeSum;
+    double longitudeSum;
+    PlacemarkMapObject clusterPlacemark;
+    String clusterLabel;
+
+    Cell(long key) {
+      this.key = key;
+    }
+  }
+
+  private final MapObjectCollection mapObjects;
+  private final ClusterTapListener clusterTapListener;
+  private final float density;
+  private final YandexClusterTapListener yandexClusterTapListener = new YandexClusterTapListener();
+  private final Map<String, ImageProvider> clusterIcons = new HashMap<>();
+
+  private final IntObjectMap<Member> members = new IntObjectMap<>();
+  private final Map<Long, Cell> cells = new HashMap<>();
+  private final Set<Cell> dirtyCells = new LinkedHashSet<>();
+
+  private boolean enabled = false;
+  private double cellSize;
+  private int minClusterSize;
+  private int zoom;
+
+  PlacemarkClusterer(MapObjectCollection mapObjects, float density, ClusterTapListener clusterTapListener) {
+    this.mapObjects = mapObjects;
+    this.density = density;
+    this.clusterTapListener = clusterTapListener;
+  }
+
+  /** Starts clustering all of `placemarks`, `cellSize` is in density independent pixels */
+  void enable(IntObjectMap<PlacemarkMapObject> placemarks, double cellSize, int minClusterSize, float zoom) {
+    disable();
+
+    this.enabled = true;
+    this.cellSize = cellSize * density;
+    this.minClusterSize = Math.max(2, minClusterSize);
+    this.zoom = (int) Math.floor(zoom);
+
+    final IntObjectMap.Cursor<PlacemarkMapObject> cursor = placemarks.cursor();
+
+    while (cursor.next()) {
+      add(cursor.key(), cursor.value());
+    }
+
+    flush();
+  }
+
+  /** Removes cluster placemarks and shows every placemark again */
+  void disable() {
+    if (!enabled) {
+      return;
+    }
+
+    for (Cell cell : cells.values()) {
+      removeClusterPlacemark(cell);
+    }
+
+    for (Member member : members) {
+      member.placemark.setVisible(true);
+    }
+
+    reset();
+    enabled = false;
+  }
+
+  /** Forgets all placemarks without touching the map, used when the map was cleared */
+  void reset() {
+    members.clear();
+    cells.clear();
+    dirtyCells.clear();
+    clusterIcons.clear();
+  }
+
+  void onZoomChanged(float newZoom) {
+    final int flooredZoom = (int) Math.floor(newZoom);
+
+    if (!enabled || flooredZoom == zoom) {
+      return;
+    }
+
+    zoom = flooredZoom;
+
+    for (Cell cell : cells.values()) {
+      removeClusterPlacemark(cell);
+    }
+    cells.clear();
+    dirtyCells.clear();
+
+    for (Member member : members) {
+      member.cell = null;
+      placeMember(member);
+    }
+
+    flush();
+  }
+
+  void add(int key, PlacemarkMapObject placemark) {
+    if (!enabled) {
+      return;
+    }
+
+    final Member member = new Member(key, placemark);
+    final Point point = placemark.getGeometry();
+
+    member.latitude = point.getLatitude();
+    member.longitude = point.getLongitude();
+    members.put(key, member);
+    placeMember(member);
+  }
+
+  void move(int key) {
+    final Member member = members.get(key);
+
+    if (member == null) {
+      return;
+    }
+
+    final Point point = member.placemark.getGeometry();
+    final Cell cell = member.cell;
+
+    cell.latitudeSum -= member.latitude;
+    cell.longitudeSum -= member.longitude;
+    member.latitude = point.getLatitude();
+    member.longitude = point.getLongitude();
+
+    if (cellKey(member.latitude, member.longitude) == cell.key) {
+      cell.latitudeSum += member.latitude;
+      cell.longitudeSum += member.longitude;
+      dirtyCells.add(cell);
+      return;
+    }
+
+    cell.members.remove(member.key);
+    dirtyCells.add(cell);
+    member.placemark.setVisible(true);
+    placeMember(member);
+  }
+
+  /** Called before the placemark is removed from the map */
+  void remove(int key) {
+    final Member member = members.remove(key);
+
+    if (member == null) {
+      return;
+    }
+
+    final Cell cell = member.cell;
+
+    cell.members.remove(key);
+    cell.latitudeSum -= member.latitude;
+    cell.longitudeSum -= member.longitude;
+    dirtyCells.add(cell);
+  }
+
+  /** Updates cluster placemarks of every cell changed since the last call */
+  void flush() {
+    for (Cell cell : dirtyCells) {
+      refreshCell(cell);
+    }
+
+    dirtyCells.clear();
+  }
+
+  private void placeMember(Member member) {
+    final long key = cellKey(member.latitude, member.longitude);
+    Cell cell = cells.get(key);
+
+    if (cell == null) {
+      cell = new Cell(key);
+      cells.put(key, cell);
+    }
+
+    member.cell = cell;
+    cell.members.put(member.key, member);
+    cell.latitudeSum += member.latitude;
+    cell.longitudeSum += member.longitude;
+    dirtyCells.add(cell);
+  }
+
+  private void refreshCell(Cell cell) {
+    final int size = cell.members.size();
+
+    if (size == 0) {
+      removeClusterPlacemark(cell);
+      cells.remove(cell.key);
+      return;
+    }
+
+    if (size < minClusterSize) {
+      removeClusterPlacemark(cell);
+
+      for (Member member : cell.members) {
+        member.placemark.setVisible(true);
+      }
+      return;
+    }
+
+    for (Member member : cell.members) {
+      member.placemark.setVisible(false);
+    }
+
+    final Point center = new Point(cell.latitudeSum / size, cell.longitudeSum / size);
+    final String label = clusterLabel(size);
+
+    if (cell.clusterPlacemark == null) {
+      cell.clusterPlacemark = mapObjects.addPlacemark(center, clusterIcon(label));
+      cell.clusterPlacemark.setUserData(cell);
+      cell.clusterPlacemark.addTapListener(yandexClusterTapListener);
+      cell.clusterLabel = label;
+      return;
+    }
+
+    cell.clusterPlacemark.setGeometry(center);
+
+    if (!label.equals(cell.clusterLabel)) {
+      cell.clusterPlacemark.setIcon(clusterIcon(label));
+      cell.clusterLabel = label;
+    }
+  }
+
+  private void removeClusterPlacemark(Cell cell) {
+    if (cell.clusterPlacemark != null) {
+      mapObjects.remove(cell.clusterPlacemark);
+      cell.clusterPlacemark = null;
+      cell.clusterLabel = null;
+    }
+  }
+
+  private long cellKey(double latitude, double longitude) {
+    final double scale = WebMercator.scale(zoom) / cellSize;
+    final long x = (long) Math.floor(WebMercator.worldX(longitude) * scale);
+    final long y = (long) Math.floor(WebMercator.worldY(latitude) * scale);
+
+    return (x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  // Exact counts for small clusters, rounded ones for big clusters to keep the number of icons bounded
+  private static String clusterLabel(int size) {
+    if (size < 100) {
+      return String.valueOf(size);
+    } else if (size < 1000) {
+      return (size / 100 * 100) + "+";
+    } else {
+      return (size / 1000) + "k+";
+    }
+  }
+
+  private ImageProvider clusterIcon(String label) {
+    ImageProvider icon = clusterIcons.get(label);
+
+    if (icon == null) {
+      icon = ImageProvider.fromBitmap(drawClusterIcon(label));
+      clusterIcons.put(label, icon);
+    }
+
+    return icon;
+  }
+
+  private Bitmap drawClusterIcon(String label) {
+    final float radius = (label.length() < 3 ? 16 : 20) * density;
+    final int size = (int) Math.ceil(radius * 2);
+    final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    final Canvas canvas = new Canvas(bitmap);
+
+    final Paint background = new Paint(Paint.ANTI_ALIAS_FLAG);
+    background.setColor(0xFF0066FF);
+    canvas.drawCircle(radius, radius, radius, background);
+
+    final Paint border = new Paint(Paint.ANTI_ALIAS_FLAG);
+    border.setStyle(Paint.Style.STROKE);
+    border.setStrokeWidth(2 * density);
+    border.setColor(0xFFFFFFFF);
+    canvas.drawCircle(radius, radius, radius - density, border);
+
+    final Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+    text.setColor(0xFFFFFFFF);
+    text.setTextSize(12 * density);
+    text.setFakeBoldText(true);
+    text.setTextAlign(Paint.Align.CENTER);
+    canvas.drawText(label, radius, radius - (text.descent() + text.ascent()) / 2, text);
+
+    return bitmap;
+  }
+
+  private class YandexClusterTapListener implements MapObjectTapListener {
+    public boolean onMapObjectTap(MapObject mapObject, Point point) {
+      final Cell cell = (Cell) mapObject.getUserData();
+      final List<Object> hashCodes = new ArrayList<>(cell.members.size());
+
+      for (Member member : cell.members) {
+        hashCodes.add(member.placemark.getUserData());
+      }
+
+      clusterTapListener.onClusterTap(hashCodes, point);
+
+      return true;
+    }
+  }
+}
@@ -0,0 +1,334 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial hash of points keyed by int ids.
+ *
+ * Points are bucketed into cells of `cellSize` degrees, so bounding box queries
+ * only look at the cells covering the box, or at the occupied cells if there are fewer of them.
+ */
+final class PointGridIndex {
+  static final double DEFAULT_CELL_SIZE = 0.05;
+
+  // Polar radius is the smallest one, so boxes around circles built with it are never too small
+  private static final double MIN_EARTH_RADIUS = 6356752.0;
+
+  interface Visitor {
+    void visit(int id, double latitude, double longitude);
+  }
+
+  /** Exact distance in meters used to refine candidates found by the grid */
+  interface Metric {
+    double distance(double latitude1, double longitude1, double latitude2, double longitude2);
+  }
+
+  static final class Neighbour {
+    final int id;
+    final double latitude;
+    final double longitude;
+    final double distance;
+
+    Neighbour(int id, double latitude, double longitude, double distance) {
+      this.id = id;
+      this.latitude = latitude;
+      this.longitude = longitude;
+      this.distance = distance;
+    }
+  }
+
+  private static final Comparator<Neighbour> BY_DISTANCE = new Comparator<Neighbour>() {
+    @Override
+    public int compare(Neighbour n1, Neighbour n2) {
+      return Double.compare(n1.distance, n2.distance);
+    }
+  };
+
+  private static class Entry {
+    final int id;
+    double latitude;
+    double longitude;
+    Cell cell;
+    int indexInCell;
+
+    Entry(int id) {
+      this.id = id;
+    }
+  }
+
+  private static class Cell {
+    final long key;
+    Entry[] entries = new Entry[4];
+    int size;
+
+    Cell(long key) {
+      this.key = key;
+    }
+  }
+
+  private final double cellSize;
+  private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+  private final Map<Long, Cell> cells = new HashMap<>();
+
+  PointGridIndex() {
+    this(DEFAULT_CELL_SIZE);
+  }
+
+  PointGridIndex(double cellSize) {
+    this.cellSize = cellSize;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  boolean contains(int id) {
+    return entries.containsKey(id);
+  }
+
+  void put(int id, double latitude, double longitude) {
+    Entry entry = entries.get(id);
+
+    if (entry == null) {
+      entry = new Entry(id);
+      entries.put(id, entry);
+    } else if (cellKey(latitude, longitude) == entry.cell.key) {
+      entry.latitude = latitude;
+      entry.longitude = longitude;
+      return;
+    } else {
+      removeFromCell(entry);
+    }
+
+    entry.latitude = latitude;
+    entry.longitude = longitude;
+    addToCell(entry);
+  }
+
+  boolean remove(int id) {
+    final Entry entry = entries.remove(id);
+
+    if (entry == null) {
+      return false;
+    }
+
+    removeFromCell(entry);
+    return true;
+  }
+
+  void clear() {
+    entries.clear();
+    cells.clear();
+  }
+
+  /** Visits every point inside the box, `minLongitude > maxLongitude` means the box crosses the antimeridian */
+  void query(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, Visitor visitor) {
+    if (minLongitude > maxLongitude) {
+      queryRange(minLatitude, minLongitude, maxLatitude, 180, visitor);
+      queryRange(minLatitude, -180, maxLatitude, maxLongitude, visitor);
+    } else {
+      queryRange(minLatitude, minLongitude, maxLatitude, maxLongitude, visitor);
+    }
+  }
+
+  /** Points not further than `radius` meters from the center, nearest first */
+  List<Neighbour> withinRadius(
+    final double latitude,
+    final double longitude,
+    final double radius,
+    final Metric metric
+  ) {
+    final List<Neighbour> result = new ArrayList<>();
+    final Visitor collector = new Visitor() {
+      @Override
+      public void visit(int id, double pointLatitude, double pointLongitude) {
+        final double distance = metric.distance(latitude, longitude, pointLatitude, pointLongitude);
+
+        if (distance <= radius) {
+          result.add(new Neighbour(id, pointLatitude, pointLongitude, distance));
+        }
+      }
+    };
+
+    final double angle = radius / MIN_EARTH_RADIUS;
+    final double latitudeDelta = Math.toDegrees(angle);
+    final double minLatitude = latitude - latitudeDelta;
+    final double maxLatitude = latitude + latitudeDelta;
+
+    // Circles containing a pole or too big for the sine below cover all longitudes
+    if (minLatitude <= -90 || maxLatitude >= 90 || angle >= Math.PI / 2) {
+      query(Math.max(-90, minLatitude), -180, Math.min(90, maxLatitude), 180, collector);
+    } else {
+      final double sinDelta = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+      final double longitudeDelta = sinDelta >= 1 ? 180 : Math.toDegrees(Math.asin(sinDelta));
+
+      if (longitudeDelta >= 180) {
+        query(minLatitude, -180, maxLatitude, 180, collector);
+      } else {
+        query(
+          minLatitude,
+          normalizeLongitude(longitude - longitudeDelta),
+          maxLatitude,
+          normalizeLongitude(longitude + longitudeDelta),
+          collector
+        );
+      }
+    }
+
+    Collections.sort(result, BY_DISTANCE);
+    return result;
+  }
+
+  /**
+   * Up to `count` nearest points, nearest first.
+   *
+   * Searches circles of growing radius starting from the size of one cell,
+   * so only cells around the center are visited when points are dense enough.
+   */
+  List<Neighbour> nearest(double latitude, double longitude, int count, Metric metric) {
+    if (count <= 0 || entries.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    final double maxRadius = Math.PI * MIN_EARTH_RADIUS;
+    double radius = Math.toRadians(cellSize) * MIN_EARTH_RADIUS;
+
+    while (true) {
+      final boolean lastStep = radius >= maxRadius || count >= entries.size();
+      final List<Neighbour> found = withinRadius(
+        latitude,
+        longitude,
+        lastStep ? Double.POSITIVE_INFINITY : radius,
+        metric
+      );
+
+      if (found.size() >= count) {
+        return new ArrayList<>(found.subList(0, count));
+      }
+
+      if (lastStep) {
+        return found;
+      }
+
+      radius *= 2;
+    }
+  }
+
+  private void queryRange(
+    double minLatitude,
+    double minLongitude,
+    double maxLatitude,
+    double maxLongitude,
+    Visitor visitor
+  ) {
+    final long minX = cellCoordinate(minLongitude);
+    final long maxX = cellCoordinate(maxLongitude);
+    final long minY = cellCoordinate(minLatitude);
+    final long maxY = cellCoordinate(maxLatitude);
+
+    // Zoomed out boxes cover far more cells than there are points
+    if ((maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+      for (Cell cell : cells.values()) {
+        final long x = cell.key >> 32;
+        final long y = (int) cell.key;
+
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          visitCell(cell, minLatitude, minLongitude, maxLatitude, maxLongitude, visitor);
+        }
+      }
+      return;
+    }
+
+    for (long x = minX; x <= maxX; x++) {
+      for (long y = minY; y <= maxY; y++) {
+        final Cell cell = cells.get(key(x, y));
+
+        if (cell != null) {
+          visitCell(cell, minLatitude, minLongitude, maxLatitude, maxLongitude, visitor);
+        }
+      }
+    }
+  }
+
+  private static void visitCell(
+    Cell cell,
+    double minLatitude,
+    double minLongitude,
+    double maxLatitude,
+    double maxLongitude,
+    Visitor visitor
+  ) {
+    for (int i = 0; i < cell.size; i++) {
+      final Entry entry = cell.entries[i];
+
+      if (
+        entry.latitude >= minLatitude && entry.latitude <= maxLatitude &&
+        entry.longitude >= minLongitude && entry.longitude <= maxLongitude
+      ) {
+        visitor.visit(entry.id, entry.latitude, entry.longitude);
+      }
+    }
+  }
+
+  private void addToCell(Entry entry) {
+    final long key = cellKey(entry.latitude, entry.longitude);
+    Cell cell = cells.get(key);
+
+    if (cell == null) {
+      cell = new Cell(key);
+      cells.put(key, cell);
+    }
+
+    if (cell.size == cell.entries.length) {
+      final Entry[] grown = new Entry[cell.size * 2];
+      System.arraycopy(cell.entries, 0, grown, 0, cell.size);
+      cell.entries = grown;
+    }
+
+    entry.cell = cell;
+    entry.indexInCell = cell.size;
+    cell.entries[cell.size++] = entry;
+  }
+
+  // Swap with the last entry of the cell to remove in constant time
+  private void removeFromCell(Entry entry) {
+    final Cell cell = entry.cell;
+    final Entry last = cell.entries[--cell.size];
+
+    cell.entries[entry.indexInCell] = last;
+    last.indexInCell = entry.indexInCell;
+    cell.entries[cell.size] = null;
+    entry.cell = null;
+
+    if (cell.size == 0) {
+      cells.remove(cell.key);
+    }
+  }
+
+  private static double normalizeLongitude(double longitude) {
+    if (longitude < -180) {
+      return longitude + 360;
+    } else if (longitude > 180) {
+      return longitude - 360;
+    }
+
+    return longitude;
+  }
+
+  private long cellKey(double latitude, double longitude) {
+    return key(cellCoordinate(longitude), cellCoordinate(latitude));
+  }
+
+  private long cellCoordinate(double degrees) {
+    return (long) Math.floor(degrees / cellSize);
+  }
+
+  private static long key(long x, long y) {
+    return (x << 32) | (y & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,106 @@
+package com.unact.yandexmapkit;
+
+/**
+ * Douglas-Peucker polyline simplification in {@link WebMercator} world coordinates.
+ *
+ * A tolerance of `pixels / 2^zoom` keeps the simplified line within `pixels`
+ * of the original one when displayed at `zoom`.
+ */
+final class PolylineSimplifier {
+  private PolylineSimplifier() {}
+
+  static double tolerance(double pixels, double zoom) {
+    return pixels / WebMercator.scale(zoom);
+  }
+
+  /**
+   * Returns indexes of the points which are kept, in ascending order.
+   * The first and the last points are always kept.
+   */
+  static int[] simplify(double[] x, double[] y, double tolerance) {
+    final int length = x.length;
+
+    if (length < 3) {
+      final int[] all = new int[length];
+      for (int i = 0; i < length; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+
+    final double sqTolerance = tolerance * tolerance;
+    final boolean[] kept = new boolean[length];
+    // Explicit stack instead of recursion, tracks may have tens of thousands of points
+    final int[] stack = new int[2 * length];
+    int top = 0;
+    int keptCount = 2;
+
+    kept[0] = true;
+    kept[length - 1] = true;
+    stack[top++] = 0;
+    stack[top++] = length - 1;
+
+    while (top > 0) {
+      final int last = stack[--top];
+      final int first = stack[--top];
+      double maxSqDistance = 0;
+      int index = -1;
+
+      for (int i = first + 1; i < last; i++) {
+        final double sqDistance = sqSegmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+
+        if (sqDistance > maxSqDistance) {
+          index = i;
+          maxSqDistance = sqDistance;
+        }
+      }
+
+      if (index != -1 && maxSqDistance > sqTolerance) {
+        kept[index] = true;
+        keptCount++;
+        stack[top++] = first;
+        stack[top++] = index;
+        stack[top++] = index;
+        stack[top++] = last;
+      }
+    }
+
+    final int[] indexes = new int[keptCount];
+    for (int i = 0, j = 0; i < length; i++) {
+      if (kept[i]) {
+        indexes[j++] = i;
+      }
+    }
+
+    return indexes;
+  }
+
+  private static double sqSegmentDistance(
+    double px,
+    double py,
+    double ax,
+    double ay,
+    double bx,
+    double by
+  ) {
+    double dx = bx - ax;
+    double dy = by - ay;
+
+    if (dx != 0 || dy != 0) {
+      final double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+
+      if (t > 1) {
+        ax = bx;
+        ay = by;
+      } else if (t > 0) {
+        ax += dx * t;
+        ay += dy * t;
+      }
+    }
+
+    dx = px - ax;
+    dy = py - ay;
+
+    return dx * dx + dy * dy;
+  }
+}
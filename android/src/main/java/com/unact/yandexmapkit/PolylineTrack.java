@@ -0,0 +1,131 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live track drawn as sealed chunks of `chunkLength` segments and a live tail.
+ *
+ * Appended points only rebuild the tail, a full tail is sealed into a new chunk which is never
+ * rebuilt again, so appending to a track costs the same regardless of its total length.
+ * Neighbour chunks share their boundary point, so the track is drawn without gaps.
+ *
+ * With a maximum length the oldest points are dropped: the oldest chunk is rebuilt
+ * from the points left of it and dropped once it has none.
+ *
+ * Points are numbered from the first point ever added,
+ * chunk `k` holds points from `k * chunkLength` to `(k + 1) * chunkLength` inclusive.
+ */
+final class PolylineTrack<T> {
+  static final int DEFAULT_CHUNK_LENGTH = 256;
+
+  /** Draws the track, calls follow the order of the chunks */
+  interface Listener<T> {
+    /** A new chunk after all others was sealed */
+    void onChunkSealed(List<T> points);
+
+    /** The oldest chunk lost some of its points to the maximum length */
+    void onOldestChunkTrimmed(List<T> points);
+
+    /** The oldest chunk lost all its points to the maximum length or the track was cleared */
+    void onOldestChunkDropped();
+
+    void onTailChanged(List<T> points);
+  }
+
+  private final RingBuffer<T> points;
+  private final int chunkLength;
+  private final Listener<T> listener;
+  // Number of the oldest point kept
+  private long first = 0;
+  // Chunks before this one are sealed
+  private long sealedChunks = 0;
+  // Sealed chunks from this one are drawn
+  private long drawnChunks = 0;
+
+  PolylineTrack(int chunkLength, int maxLength, Listener<T> listener) {
+    if (chunkLength <= 0) {
+      throw new IllegalArgumentException("Chunk length must be positive: " + chunkLength);
+    }
+
+    this.points = new RingBuffer<>(chunkLength, maxLength);
+    this.chunkLength = chunkLength;
+    this.listener = listener;
+  }
+
+  int size() {
+    return points.size();
+  }
+
+  int chunkCount() {
+    return (int) (sealedChunks - drawnChunks);
+  }
+
+  void addAll(List<T> newPoints) {
+    final int previousSize = points.size();
+
+    points.addAll(newPoints);
+    update(previousSize + newPoints.size() - points.size());
+  }
+
+  void setMaxLength(int maxLength) {
+    final int previousSize = points.size();
+
+    points.setMaxLength(maxLength);
+    update(previousSize - points.size());
+  }
+
+  /** Drops all chunks, the tail is left for the caller to remove */
+  void clear() {
+    while (drawnChunks < sealedChunks) {
+      listener.onOldestChunkDropped();
+      drawnChunks++;
+    }
+  }
+
+  private void update(int droppedPoints) {
+    first += droppedPoints;
+
+    if (droppedPoints > 0) {
+      trimChunks();
+    }
+
+    final long last = first + points.size() - 1;
+
+    while ((sealedChunks + 1) * chunkLength <= last) {
+      if ((sealedChunks + 1) * chunkLength > first) {
+        listener.onChunkSealed(range(Math.max(sealedChunks * chunkLength, first), (sealedChunks + 1) * chunkLength));
+      } else {
+        // Dropped before it was drawn
+        drawnChunks++;
+      }
+
+      sealedChunks++;
+    }
+
+    listener.onTailChanged(range(Math.max(sealedChunks * chunkLength, first), last));
+  }
+
+  private void trimChunks() {
+    // A chunk left with its end point only is drawn by the next one
+    while (drawnChunks < sealedChunks && (drawnChunks + 1) * chunkLength <= first) {
+      listener.onOldestChunkDropped();
+      drawnChunks++;
+    }
+
+    if (drawnChunks < sealedChunks && drawnChunks * chunkLength < first) {
+      listener.onOldestChunkTrimmed(range(first, (drawnChunks + 1) * chunkLength));
+    }
+  }
+
+  // Points from `from` to `to` inclusive, `to` below `from` gives an empty list
+  private List<T> range(long from, long to) {
+    final List<T> list = new ArrayList<>((int) Math.max(0, to - from + 1));
+
+    for (long i = from; i <= to; i++) {
+      list.add(points.get((int) (i - first)));
+    }
+
+    return list;
+  }
+}
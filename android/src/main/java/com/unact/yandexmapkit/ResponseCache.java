@@ -0,0 +1,139 @@
+package com.unact.yandexmapkit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LRU cache of router and search responses which expire after a TTL.
+ *
+ * Keys are built from the kind of request, its coordinates quantized to a grid
+ * and its options, so repeated requests for nearly the same points skip the network.
+ */
+final class ResponseCache {
+  static final int DEFAULT_MAX_ENTRIES = 32;
+  static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  // About a meter, less than the precision of a position fix
+  static final double ROUTE_QUANTUM = 1e-5;
+
+  // About a kilometer, search results don't change with small camera moves
+  static final double SEARCH_QUANTUM = 1e-2;
+
+  private static class Entry {
+    final Object response;
+    final long createdAt;
+
+    Entry(Object response, long createdAt) {
+      this.response = response;
+      this.createdAt = createdAt;
+    }
+  }
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private int maxEntries;
+  private long ttlMillis;
+  private int hitCount;
+  private int missCount;
+  private int evictionCount;
+  private int expirationCount;
+
+  ResponseCache(int maxEntries, long ttlMillis) {
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /** `coordinates` are rounded to multiples of `quantum` degrees */
+  static String key(String kind, double[] coordinates, double quantum, String options) {
+    final StringBuilder builder = new StringBuilder(kind);
+
+    for (double coordinate : coordinates) {
+      builder.append(':').append(Math.round(coordinate / quantum));
+    }
+
+    return builder.append('|').append(options).toString();
+  }
+
+  /** Returns `null` if there is no response for the key or it is older than the TTL */
+  Object get(String key) {
+    final Entry entry = entries.get(key);
+
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+
+    if (isExpired(entry, now())) {
+      entries.remove(key);
+      expirationCount++;
+      missCount++;
+      return null;
+    }
+
+    hitCount++;
+    return entry.response;
+  }
+
+  void put(String key, Object response) {
+    if (maxEntries <= 0) {
+      return;
+    }
+
+    entries.put(key, new Entry(response, now()));
+    trimToSize();
+  }
+
+  void configure(int maxEntries, long ttlMillis) {
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlMillis;
+    trimToSize();
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  Map<String, Object> getStats() {
+    final Map<String, Object> stats = new LinkedHashMap<>();
+
+    stats.put("count", entries.size());
+    stats.put("maxEntries", maxEntries);
+    stats.put("ttl", ttlMillis);
+    stats.put("hitCount", hitCount);
+    stats.put("missCount", missCount);
+    stats.put("evictionCount", evictionCount);
+    stats.put("expirationCount", expirationCount);
+
+    return stats;
+  }
+
+  // Expired entries are dropped first, then the least recently used ones
+  private void trimToSize() {
+    final long now = now();
+    final Iterator<Entry> iterator = entries.values().iterator();
+
+    while (iterator.hasNext()) {
+      if (isExpired(iterator.next(), now)) {
+        iterator.remove();
+        expirationCount++;
+      }
+    }
+
+    final Iterator<Entry> lruIterator = entries.values().iterator();
+
+    while (entries.size() > Math.max(0, maxEntries) && lruIterator.hasNext()) {
+      lruIterator.next();
+      lruIterator.remove();
+      evictionCount++;
+    }
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return now - entry.createdAt > ttlMillis;
+  }
+
+  private static long now() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+}
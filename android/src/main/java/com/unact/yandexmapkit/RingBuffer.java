@@ -0,0 +1,125 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable ring buffer with an optional maximum length.
+ *
+ * When the maximum length is reached the oldest elements are dropped,
+ * so appending to a long live track costs the same regardless of its total length.
+ */
+final class RingBuffer<T> {
+  static final int UNBOUNDED = 0;
+
+  private Object[] elements;
+  private int head;
+  private int size;
+  private int maxLength;
+
+  RingBuffer(int initialCapacity, int maxLength) {
+    checkMaxLength(maxLength);
+    this.elements = new Object[Math.max(initialCapacity, 8)];
+    this.maxLength = maxLength;
+    trim();
+  }
+
+  int size() {
+    return size;
+  }
+
+  void setMaxLength(int maxLength) {
+    checkMaxLength(maxLength);
+    this.maxLength = maxLength;
+    trim();
+  }
+
+  void add(T element) {
+    if (maxLength != UNBOUNDED && size == maxLength) {
+      elements[head] = element;
+      head = (head + 1) % elements.length;
+      return;
+    }
+
+    if (size == elements.length) {
+      grow();
+    }
+
+    elements[(head + size) % elements.length] = element;
+    size++;
+  }
+
+  void addAll(List<T> newElements) {
+    int skip = 0;
+
+    // Elements which would be dropped right away are not worth copying
+    if (maxLength != UNBOUNDED && newElements.size() > maxLength) {
+      skip = newElements.size() - maxLength;
+    }
+
+    for (int i = skip; i < newElements.size(); i++) {
+      add(newElements.get(i));
+    }
+  }
+
+  /** Element at `index`, the oldest element is at 0 */
+  @SuppressWarnings("unchecked")
+  T get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    return (T) elements[(head + index) % elements.length];
+  }
+
+  @SuppressWarnings("unchecked")
+  List<T> toList() {
+    final List<T> list = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+      list.add((T) elements[(head + i) % elements.length]);
+    }
+
+    return list;
+  }
+
+  private static void checkMaxLength(int maxLength) {
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("Max length must not be negative: " + maxLength);
+    }
+  }
+
+  private void grow() {
+    int capacity = elements.length << 1;
+
+    if (maxLength != UNBOUNDED) {
+      capacity = Math.min(capacity, maxLength);
+    }
+
+    resize(capacity);
+  }
+
+  private void resize(int capacity) {
+    final Object[] resized = new Object[capacity];
+
+    for (int i = 0; i < size; i++) {
+      resized[i] = elements[(head + i) % elements.length];
+    }
+
+    elements = resized;
+    head = 0;
+  }
+
+  private void trim() {
+    if (maxLength == UNBOUNDED || size <= maxLength) {
+      if (maxLength != UNBOUNDED && elements.length > maxLength) {
+        resize(Math.max(maxLength, size));
+      }
+      return;
+    }
+
+    head = (head + size - maxLength) % elements.length;
+    size = maxLength;
+    resize(maxLength);
+  }
+}
@@ -0,0 +1,257 @@
+package com.unact.yandexmapkit;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sections of a masstransit route and their stop points as they are sent to Dart.
+ *
+ * Does not depend on MapKit, sections are filled in from MapKit routes by `YandexMapController`.
+ */
+final class RouteSections {
+  private RouteSections() {}
+
+  static class PointBound {
+    final RoutePoint startPoint;
+    final RoutePoint endPoint;
+
+    PointBound(RoutePoint startPoint, RoutePoint endPoint) {
+      this.startPoint = startPoint;
+      this.endPoint = endPoint;
+    }
+  }
+
+  static class RoutePoint {
+    final String name;
+    final int color;
+    final int zIndex;
+
+    RoutePoint(String name, int color, int zIndex) {
+      this.name = name;
+      this.color = color;
+      this.zIndex = zIndex;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "  RoutePoint(\n" +
+        "    name: " + name + ",\n" +
+        "    color: " + color + ",\n" +
+        "    zIndex: " + zIndex + "\n" +
+        "  )\n";
+    }
+
+    Map<String, Object> serialize() {
+      final Map<String, Object> map = new HashMap<>();
+
+      map.put("name", name);
+      map.put("color", color);
+      map.put("zIndex", zIndex);
+
+      return map;
+    }
+  }
+
+  static class SectionInfo {
+    final String tag;
+    final double duration;
+    final double walkingDistance;
+    final int color;
+    final PointBound points;
+
+    SectionInfo(
+      String tag,
+      double duration,
+      double distance,
+      int color,
+      PointBound points
+    ) {
+      this.tag = tag;
+      this.duration = duration;
+      this.walkingDistance = distance;
+      this.color = color;
+      this.points = points;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "SectionInfo(\n" +
+        "  tag: " + tag + ",\n" +
+        "  duration: " + duration + ",\n" +
+        "  walkingDistance: " + walkingDistance + ",\n" +
+        "  color: " + color + ",\n" +
+        "  points.startPoint: " + points.startPoint.toString() +
+        "  points.endPoint: " + points.endPoint.toString() +
+        ")\n";
+    }
+
+    Map<String, Object> serialize() {
+      final Map<String, Object> map = new HashMap<>();
+
+      map.put("tag", tag);
+      map.put("duration", duration);
+      map.put("walkingDistance", walkingDistance);
+      map.put("color", color);
+      map.put("points.startPoint", points.startPoint.serialize());
+      map.put("points.endPoint", points.endPoint.serialize());
+
+      return map;
+    }
+  }
+
+  static class SectionTransport extends SectionInfo {
+    final String lineName;
+    final String lineId;
+    final String directionDesc;
+    final String interval;
+    final List<String> intermediateStations;
+
+    SectionTransport(
+      String tag,
+      double duration,
+      double walkingDistance,
+      int color,
+      String lineName,
+      String lineId,
+      String directionDesc,
+      String interval,
+      List<String> intermediateStations,
+      PointBound points
+    ) {
+      super(tag, duration, walkingDistance, color, points);
+
+      this.lineName = lineName;
+      this.lineId = lineId;
+      this.directionDesc = directionDesc;
+      this.interval = interval;
+      this.intermediateStations = intermediateStations;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return "SectionTransport(\n" +
+        "  tag: " + tag + ",\n" +
+        "  duration: " + duration + ",\n" +
+        "  walkingDistance: " + walkingDistance + ",\n" +
+        "  color: " + color + ",\n" +
+        "  lineName: " + lineName + ",\n" +
+        "  lineId: " + lineId + ",\n" +
+        "  directionDesc: " + directionDesc + ",\n" +
+        "  interval: " + interval + ",\n" +
+        "  intermediateStations: " + intermediateStationsToString() + ",\n" +
+        "  points.startPoint: " + points.startPoint.toString() +
+        "  points.endPoint: " + points.endPoint.toString() +
+        ")\n";
+    }
+
+    private String intermediateStationsToString() {
+      final StringBuilder builder = new StringBuilder();
+      builder.append("[");
+
+      for (final String stop : intermediateStations) {
+        builder.append(stop);
+        //noinspection StringEquality
+        if (stop != intermediateStations.get(intermediateStations.size() - 1)) {
+          builder.append(", ");
+        }
+      }
+
+      builder.append("]");
+      return builder.toString();
+    }
+
+    @Override
+    Map<String, Object> serialize() {
+      final Map<String, Object> map = new HashMap<>();
+
+      map.put("tag", tag);
+      map.put("duration", duration);
+      map.put("walkingDistance", walkingDistance);
+      map.put("color", color);
+      map.put("lineName", lineName);
+      map.put("lineId", lineId);
+      map.put("directionDesc", directionDesc);
+      map.put("interval", interval);
+      map.put("intermediateStations.size", intermediateStations.size());
+      map.put("points.startPoint", points.startPoint.serialize());
+      map.put("points.endPoint", points.endPoint.serialize());
+
+      return map;
+    }
+  }
+
+  static List<RoutePoint> createRoutePoints(List<SectionInfo> sections) {
+    final List<RoutePoint> points = new ArrayList<>();
+
+    if (sections.isEmpty()) {
+      return points;
+    }
+
+    // Add bound point
+    points.add(sections.get(0).points.startPoint);
+    SectionInfo nextSection;
+
+    for (int i = 0; i < sections.size() - 1; i += 1) {
+      final SectionInfo section = sections.get(i);
+      nextSection = sections.get(i + 1);
+
+      final RoutePoint p1 = section.points.endPoint;
+      final RoutePoint p2 = nextSection.points.startPoint;
+
+      points.add(maxPoint(p1, p2));
+    }
+
+    // Add bound point
+    points.add(sections.get(sections.size() - 1).points.endPoint);
+    return points;
+  }
+
+  /** Merges adjacent pedestrian sections into one */
+  static List<SectionInfo> mergeSectionInfoList(List<SectionInfo> sections) {
+    final List<SectionInfo> optimizedSections = new ArrayList<>();
+    SectionInfo prevSection = null;
+
+    for (final SectionInfo section : sections) {
+      if (prevSection != null) {
+        if (prevSection.tag.equals("pedestrian") && section.tag.equals("pedestrian")) {
+          prevSection = new SectionInfo(
+            /* tag */ prevSection.tag,
+            /* duration */ prevSection.duration + section.duration,
+            /* walkingDistance */ prevSection.walkingDistance + section.walkingDistance,
+            /* color */ prevSection.color,
+            /* points */ mergePoints(prevSection.points, section.points)
+          );
+        } else {
+          optimizedSections.add(prevSection);
+          prevSection = section;
+        }
+      } else {
+        prevSection = section;
+      }
+    }
+
+    if (prevSection != null) {
+      optimizedSections.add(prevSection);
+    }
+
+    return optimizedSections;
+  }
+
+  private static PointBound mergePoints(PointBound b1, PointBound b2) {
+    return new PointBound(
+      /* startPoint */ maxPoint(b1.startPoint, b2.startPoint),
+      /* endPoint */ maxPoint(b1.endPoint, b2.endPoint)
+    );
+  }
+
+  private static RoutePoint maxPoint(RoutePoint p1, RoutePoint p2) {
+    return p1.zIndex > p2.zIndex ? p1 : p2;
+  }
+}
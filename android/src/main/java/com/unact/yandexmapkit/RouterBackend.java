@@ -0,0 +1,26 @@
+package com.unact.yandexmapkit;
+
+import java.util.Map;
+
+/** Estimates routes requested by `MapCore` */
+interface RouterBackend {
+  interface Listener {
+    /** `estimation` is `null` if the router found no routes */
+    void onEstimation(Map<String, Object> estimation);
+
+    void onError(String error);
+  }
+
+  interface Request {
+    /** Does nothing if the request is already finished */
+    void cancel();
+  }
+
+  /**
+   * `waypoints` are latitude/longitude pairs.
+   *
+   * Cached estimations may call the listener before this returns.
+   * Throws `IllegalArgumentException` for unknown modes without calling the listener.
+   */
+  Request estimate(String mode, double[] waypoints, Listener listener);
+}
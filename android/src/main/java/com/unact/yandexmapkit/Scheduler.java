@@ -0,0 +1,8 @@
+package com.unact.yandexmapkit;
+
+/** Runs delayed tasks on the thread `MapCore` is used on */
+interface Scheduler {
+  void postDelayed(Runnable task, long delayMillis);
+
+  void cancel(Runnable task);
+}
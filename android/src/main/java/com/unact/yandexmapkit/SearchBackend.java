@@ -0,0 +1,24 @@
+package com.unact.yandexmapkit;
+
+import java.util.List;
+import java.util.Map;
+
+/** Searches requested by `MapCore`, listeners are never called before the call that passed them returns */
+interface SearchBackend {
+  interface Listener {
+    void onResponse(List<Map<String, Object>> items);
+
+    void onError(String error);
+  }
+
+  interface Session {
+    boolean hasNextPage();
+
+    void fetchNextPage(Listener listener);
+
+    void cancel();
+  }
+
+  /** `params` are search options sent from Dart */
+  Session submit(String query, Map<String, Object> params, Listener listener);
+}
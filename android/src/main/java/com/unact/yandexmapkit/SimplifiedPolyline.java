@@ -0,0 +1,67 @@
+package com.unact.yandexmapkit;
+
+import com.yandex.mapkit.geometry.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polyline geometry precomputed for several zoom levels.
+ *
+ * Level `i` is good enough for every zoom up to `LEVEL_ZOOMS[i]`,
+ * for bigger zooms the full geometry is used.
+ */
+final class SimplifiedPolyline {
+  static final float[] LEVEL_ZOOMS = { 3, 6, 9, 12, 15 };
+  static final int FULL_LEVEL = LEVEL_ZOOMS.length;
+
+  private static final double TOLERANCE_PIXELS = 1.5;
+
+  private final List<List<Point>> levels = new ArrayList<>(FULL_LEVEL + 1);
+
+  SimplifiedPolyline(List<Point> points) {
+    final int length = points.size();
+    final double[] x = new double[length];
+    final double[] y = new double[length];
+
+    for (int i = 0; i < length; i++) {
+      x[i] = WebMercator.worldX(points.get(i).getLongitude());
+      y[i] = WebMercator.worldY(points.get(i).getLatitude());
+    }
+
+    for (float zoom : LEVEL_ZOOMS) {
+      final int[] indexes = PolylineSimplifier.simplify(
+        x,
+        y,
+        PolylineSimplifier.tolerance(TOLERANCE_PIXELS, zoom)
+      );
+
+      if (indexes.length == length) {
+        levels.add(points);
+        continue;
+      }
+
+      final List<Point> level = new ArrayList<>(indexes.length);
+      for (int index : indexes) {
+        level.add(points.get(index));
+      }
+      levels.add(level);
+    }
+
+    levels.add(points);
+  }
+
+  static int levelForZoom(float zoom) {
+    for (int i = 0; i < LEVEL_ZOOMS.length; i++) {
+      if (zoom <= LEVEL_ZOOMS[i]) {
+        return i;
+      }
+    }
+
+    return FULL_LEVEL;
+  }
+
+  List<Point> getPoints(int level) {
+    return levels.get(level);
+  }
+}
@@ -0,0 +1,83 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Background tasks one map view submitted to the executors shared by all views,
+ * so the view can cancel its own tasks when it is disposed.
+ *
+ * Finished tasks leave the group. Tasks submitted after `cancelAll` are not run.
+ */
+final class TaskGroup {
+  private final Set<Future<?>> tasks = new HashSet<>();
+  private boolean cancelled = false;
+
+  /**
+   * Runs `task` on `executor` as a part of this group.
+   *
+   * Throws `RejectedExecutionException` if `executor` is shut down.
+   */
+  void execute(ExecutorService executor, Runnable task) {
+    final FutureTask<Void> future = new FutureTask<Void>(task, null) {
+      @Override
+      protected void done() {
+        remove(this);
+      }
+    };
+
+    synchronized (this) {
+      if (cancelled) {
+        return;
+      }
+
+      tasks.add(future);
+    }
+
+    try {
+      executor.execute(future);
+    } catch (RuntimeException e) {
+      remove(future);
+      throw e;
+    }
+  }
+
+  /** Adapts `executor` for code which takes an `Executor`, tasks run by it are a part of this group */
+  Executor on(final ExecutorService executor) {
+    return new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        TaskGroup.this.execute(executor, task);
+      }
+    };
+  }
+
+  /** Cancels queued tasks and interrupts running ones, later tasks are not run */
+  void cancelAll() {
+    final List<Future<?>> pending;
+
+    synchronized (this) {
+      cancelled = true;
+      pending = new ArrayList<>(tasks);
+      tasks.clear();
+    }
+
+    for (Future<?> future : pending) {
+      future.cancel(true);
+    }
+  }
+
+  synchronized int size() {
+    return tasks.size();
+  }
+
+  private synchronized void remove(Future<?> future) {
+    tasks.remove(future);
+  }
+}
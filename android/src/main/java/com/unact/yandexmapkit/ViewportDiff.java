@@ -0,0 +1,70 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the viewport bounds between camera moves and finds the parts of new bounds
+ * which were not visible before.
+ *
+ * Bounds are arrays of min latitude, min longitude, max latitude, max longitude.
+ */
+final class ViewportDiff {
+  private double[] previousBounds;
+
+  /** Parts of `bounds` outside of the bounds passed to the previous call, whole `bounds` on the first call */
+  List<double[]> update(double[] bounds) {
+    final List<double[]> exposed = previousBounds != null ?
+      subtract(bounds, previousBounds) :
+      singleton(bounds);
+
+    previousBounds = bounds.clone();
+
+    return exposed;
+  }
+
+  void reset() {
+    previousBounds = null;
+  }
+
+  /** Splits the part of `bounds` outside of `subtracted` into at most four non overlapping boxes */
+  static List<double[]> subtract(double[] bounds, double[] subtracted) {
+    final double minLatitude = Math.max(bounds[0], subtracted[0]);
+    final double minLongitude = Math.max(bounds[1], subtracted[1]);
+    final double maxLatitude = Math.min(bounds[2], subtracted[2]);
+    final double maxLongitude = Math.min(bounds[3], subtracted[3]);
+
+    if (minLatitude >= maxLatitude || minLongitude >= maxLongitude) {
+      return singleton(bounds);
+    }
+
+    final List<double[]> exposed = new ArrayList<>(4);
+
+    // Full width stripes below and above the intersection, then the sides between them
+    if (bounds[0] < minLatitude) {
+      exposed.add(new double[] { bounds[0], bounds[1], minLatitude, bounds[3] });
+    }
+
+    if (maxLatitude < bounds[2]) {
+      exposed.add(new double[] { maxLatitude, bounds[1], bounds[2], bounds[3] });
+    }
+
+    if (bounds[1] < minLongitude) {
+      exposed.add(new double[] { minLatitude, bounds[1], maxLatitude, minLongitude });
+    }
+
+    if (maxLongitude < bounds[3]) {
+      exposed.add(new double[] { minLatitude, maxLongitude, maxLatitude, bounds[3] });
+    }
+
+    return exposed;
+  }
+
+  private static List<double[]> singleton(double[] bounds) {
+    final List<double[]> exposed = new ArrayList<>(1);
+
+    exposed.add(bounds.clone());
+
+    return exposed;
+  }
+}
@@ -0,0 +1,207 @@
+package com.unact.yandexmapkit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps parameters of every placemark in a spatial index, but only creates
+ * map objects for the placemarks inside the visible region plus a margin.
+ *
+ * Materialized bounds are recomputed only when the visible region leaves them,
+ * so small camera moves don't touch the map objects at all.
+ */
+final class VirtualPlacemarkLayer {
+  interface Materializer {
+    void materialize(Map<String, Object> params);
+
+    void dematerialize(int key);
+
+    void movePlacemark(int key, double latitude, double longitude);
+  }
+
+  private static class Generation {
+    int value;
+  }
+
+  private final Materializer materializer;
+  private final double margin;
+  private final PointGridIndex index = new PointGridIndex();
+  private final IntObjectMap<Map<String, Object>> placemarksParams = new IntObjectMap<>();
+  private final IntObjectMap<Generation> materialized = new IntObjectMap<>();
+  private int generation = 0;
+
+  private boolean hasBounds = false;
+  private double minLatitude;
+  private double minLongitude;
+  private double maxLatitude;
+  private double maxLongitude;
+
+  /** `margin` is a part of the visible region size added on each side of it */
+  VirtualPlacemarkLayer(double margin, Materializer materializer) {
+    this.margin = margin;
+    this.materializer = materializer;
+  }
+
+  int size() {
+    return placemarksParams.size();
+  }
+
+  int materializedSize() {
+    return materialized.size();
+  }
+
+  long footprintBytes() {
+    return placemarksParams.footprintBytes() + materialized.footprintBytes();
+  }
+
+  boolean contains(int key) {
+    return placemarksParams.containsKey(key);
+  }
+
+  void add(int key, Map<String, Object> params) {
+    final double latitude = (Double) params.get("latitude");
+    final double longitude = (Double) params.get("longitude");
+
+    if (materialized.remove(key) != null) {
+      materializer.dematerialize(key);
+    }
+
+    placemarksParams.put(key, params);
+    index.put(key, latitude, longitude);
+
+    if (isInsideBounds(latitude, longitude)) {
+      materialize(key, params);
+    }
+  }
+
+  void remove(int key) {
+    if (placemarksParams.remove(key) == null) {
+      return;
+    }
+
+    index.remove(key);
+
+    if (materialized.remove(key) != null) {
+      materializer.dematerialize(key);
+    }
+  }
+
+  void move(int key, double latitude, double longitude) {
+    final Map<String, Object> params = placemarksParams.get(key);
+
+    if (params == null) {
+      return;
+    }
+
+    params.put("latitude", latitude);
+    params.put("longitude", longitude);
+    index.put(key, latitude, longitude);
+
+    final boolean inside = isInsideBounds(latitude, longitude);
+
+    if (materialized.containsKey(key)) {
+      if (inside) {
+        materializer.movePlacemark(key, latitude, longitude);
+      } else {
+        materialized.remove(key);
+        materializer.dematerialize(key);
+      }
+    } else if (inside) {
+      materialize(key, params);
+    }
+  }
+
+  /** Materializes every placemark and forgets about them */
+  List<Map<String, Object>> drain() {
+    final List<Map<String, Object>> drained = new ArrayList<>(placemarksParams.size());
+    final IntObjectMap.Cursor<Map<String, Object>> cursor = placemarksParams.cursor();
+
+    while (cursor.next()) {
+      if (!materialized.containsKey(cursor.key())) {
+        drained.add(cursor.value());
+      }
+    }
+
+    clear();
+
+    return drained;
+  }
+
+  /** Forgets all placemarks without touching the map, used when the map was cleared */
+  void clear() {
+    index.clear();
+    placemarksParams.clear();
+    materialized.clear();
+  }
+
+  /** Updates materialized placemarks if the visible region is not inside materialized bounds anymore */
+  void onVisibleRegionChanged(
+    double visibleMinLatitude,
+    double visibleMinLongitude,
+    double visibleMaxLatitude,
+    double visibleMaxLongitude
+  ) {
+    if (
+      hasBounds &&
+      visibleMinLatitude >= minLatitude && visibleMaxLatitude <= maxLatitude &&
+      visibleMinLongitude >= minLongitude && visibleMaxLongitude <= maxLongitude
+    ) {
+      return;
+    }
+
+    final double latitudeMargin = (visibleMaxLatitude - visibleMinLatitude) * margin;
+    final double longitudeMargin = (visibleMaxLongitude - visibleMinLongitude) * margin;
+
+    hasBounds = true;
+    minLatitude = Math.max(-90, visibleMinLatitude - latitudeMargin);
+    maxLatitude = Math.min(90, visibleMaxLatitude + latitudeMargin);
+    minLongitude = Math.max(-180, visibleMinLongitude - longitudeMargin);
+    maxLongitude = Math.min(180, visibleMaxLongitude + longitudeMargin);
+
+    final int currentGeneration = ++generation;
+
+    index.query(minLatitude, minLongitude, maxLatitude, maxLongitude, new PointGridIndex.Visitor() {
+      @Override
+      public void visit(int id, double latitude, double longitude) {
+        final Generation materializedGeneration = materialized.get(id);
+
+        if (materializedGeneration != null) {
+          materializedGeneration.value = currentGeneration;
+        } else {
+          materialize(id, placemarksParams.get(id)).value = currentGeneration;
+        }
+      }
+    });
+
+    final List<Integer> outside = new ArrayList<>();
+    final IntObjectMap.Cursor<Generation> cursor = materialized.cursor();
+
+    while (cursor.next()) {
+      if (cursor.value().value != currentGeneration) {
+        outside.add(cursor.key());
+      }
+    }
+
+    for (int key : outside) {
+      materialized.remove(key);
+      materializer.dematerialize(key);
+    }
+  }
+
+  private Generation materialize(int key, Map<String, Object> params) {
+    final Generation materializedGeneration = new Generation();
+
+    materializedGeneration.value = generation;
+    materialized.put(key, materializedGeneration);
+    materializer.materialize(params);
+
+    return materializedGeneration;
+  }
+
+  private boolean isInsideBounds(double latitude, double longitude) {
+    return hasBounds &&
+      latitude >= minLatitude && latitude <= maxLatitude &&
+      longitude >= minLongitude && longitude <= maxLongitude;
+  }
+}
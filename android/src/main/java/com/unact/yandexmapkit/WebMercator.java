@@ -0,0 +1,30 @@
+package com.unact.yandexmapkit;
+
+/**
+ * Web Mercator projection used by the map.
+ *
+ * World coordinates are the pixel coordinates of a 256x256 map at zoom 0,
+ * multiply them by `2^zoom` to get pixel coordinates at `zoom`.
+ */
+final class WebMercator {
+  static final double WORLD_SIZE = 256;
+
+  private static final double MAX_LATITUDE = 85.05112878;
+
+  private WebMercator() {}
+
+  static double worldX(double longitude) {
+    return (longitude + 180) / 360 * WORLD_SIZE;
+  }
+
+  static double worldY(double latitude) {
+    double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+    double sin = Math.sin(Math.toRadians(clamped));
+
+    return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * WORLD_SIZE;
+  }
+
+  static double scale(double zoom) {
+    return Math.pow(2, zoom);
+  }
+}
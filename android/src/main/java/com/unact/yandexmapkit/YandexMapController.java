@@ -7,13 +7,17 @@ import android.content.pm.PackageManager;
 import androidx.annotation.NonNull;
 import androidx.core.app.ActivityCompat;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 
+import com.unact.yandexmapkit.RouteSections.PointBound;
+import com.unact.yandexmapkit.RouteSections.RoutePoint;
+import com.unact.yandexmapkit.RouteSections.SectionInfo;
+import com.unact.yandexmapkit.RouteSections.SectionTransport;
 import com.yandex.mapkit.*;
-import com.yandex.mapkit.directions.DirectionsFactory;
 import com.yandex.mapkit.geometry.BoundingBox;
 import com.yandex.mapkit.geometry.Geo;
 import com.yandex.mapkit.geometry.Point;
@@ -30,12 +34,9 @@ import com.yandex.mapkit.mapview.MapView;
 import com.yandex.mapkit.search.*;
 import com.yandex.mapkit.search.Session;
 import com.yandex.mapkit.search.Session.SearchListener;
-import com.yandex.mapkit.transport.TransportFactory;
-import com.yandex.mapkit.transport.bicycle.BicycleRouter;
 import com.yandex.mapkit.transport.masstransit.*;
 import com.yandex.mapkit.transport.masstransit.Line;
 import com.yandex.mapkit.transport.masstransit.Session.RouteListener;
-import com.yandex.mapkit.directions.driving.DrivingRouter;
 import com.yandex.mapkit.directions.driving.DrivingOptions;
 import com.yandex.mapkit.directions.driving.DrivingSession;
 import com.yandex.mapkit.directions.driving.DrivingRoute;
@@ -46,232 +47,84 @@ import com.yandex.runtime.Error;
 import com.yandex.runtime.image.ImageProvider;
 
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.PluginRegistry;
 import io.flutter.plugin.platform.PlatformView;
 
-public class YandexMapController implements PlatformView, MethodChannel.MethodCallHandler,
-  RouteListener, SearchListener, com.yandex.mapkit.transport.bicycle.Session.RouteListener,
-  DrivingSession.DrivingRouteListener
-{
-  static class PointBound {
-    final RoutePoint startPoint;
-    final RoutePoint endPoint;
-
-    PointBound(RoutePoint startPoint, RoutePoint endPoint) {
-      this.startPoint = startPoint;
-      this.endPoint = endPoint;
-    }
-  }
-
-  static class RoutePoint {
-    final String name;
-    final int color;
-    final int zIndex;
-
-    RoutePoint(String name, int color, int zIndex) {
-      this.name = name;
-      this.color = color;
-      this.zIndex = zIndex;
-    }
-
-    @NonNull
-    @Override
-    public String toString() {
-      return "  RoutePoint(\n" +
-        "    name: " + name + ",\n" +
-        "    color: " + color + ",\n" +
-        "    zIndex: " + zIndex + "\n" +
-        "  )\n";
-    }
-
-    Map<String, Object> serialize() {
-      final Map<String, Object> map = new HashMap<>();
-
-      map.put("name", name);
-      map.put("color", color);
-      map.put("zIndex", zIndex);
-
-      return map;
-    }
-  }
-
-  static class SectionInfo {
-    final String tag;
-    final double duration;
-    final double walkingDistance;
-    final int color;
-    final PointBound points;
-
-    SectionInfo(
-      String tag,
-      double duration,
-      double distance,
-      int color,
-      PointBound points
-    ) {
-      this.tag = tag;
-      this.duration = duration;
-      this.walkingDistance = distance;
-      this.color = color;
-      this.points = points;
-    }
-
-    @NonNull
-    @Override
-    public String toString() {
-      return "SectionInfo(\n" +
-        "  tag: " + tag + ",\n" +
-        "  duration: " + duration + ",\n" +
-        "  walkingDistance: " + walkingDistance + ",\n" +
-        "  color: " + color + ",\n" +
-        "  points.startPoint: " + points.startPoint.toString() +
-        "  points.endPoint: " + points.endPoint.toString() +
-        ")\n";
-    }
-
-    Map<String, Object> serialize() {
-      final Map<String, Object> map = new HashMap<>();
-
-      map.put("tag", tag);
-      map.put("duration", duration);
-      map.put("walkingDistance", walkingDistance);
-      map.put("color", color);
-      map.put("points.startPoint", points.startPoint.serialize());
-      map.put("points.endPoint", points.endPoint.serialize());
-
-      return map;
-    }
-  }
-
-  static class SectionTransport extends SectionInfo {
-    final String lineName;
-    final String lineId;
-    final String directionDesc;
-    final String interval;
-    final List<String> intermediateStations;
-
-    SectionTransport(
-      String tag,
-      double duration,
-      double walkingDistance,
-      int color,
-      String lineName,
-      String lineId,
-      String directionDesc,
-      String interval,
-      List<String> intermediateStations,
-      PointBound points
-    ) {
-      super(tag, duration, walkingDistance, color, points);
-
-      this.lineName = lineName;
-      this.lineId = lineId;
-      this.directionDesc = directionDesc;
-      this.interval = interval;
-      this.intermediateStations = intermediateStations;
-    }
-
-    @NonNull
-    @Override
-    public String toString() {
-      return "SectionTransport(\n" +
-        "  tag: " + tag + ",\n" +
-        "  duration: " + duration + ",\n" +
-        "  walkingDistance: " + walkingDistance + ",\n" +
-        "  color: " + color + ",\n" +
-        "  lineName: " + lineName + ",\n" +
-        "  lineId: " + lineId + ",\n" +
-        "  directionDesc: " + directionDesc + ",\n" +
-        "  interval: " + interval + ",\n" +
-        "  intermediateStations: " + intermediateStationsToString() + ",\n" +
-        "  points.startPoint: " + points.startPoint.toString() +
-        "  points.endPoint: " + points.endPoint.toString() +
-        ")\n";
-    }
-
-    private String intermediateStationsToString() {
-      final StringBuilder builder = new StringBuilder();
-      builder.append("[");
-
-      for (final String stop : intermediateStations) {
-        builder.append(stop);
-        //noinspection StringEquality
-        if (stop != intermediateStations.get(intermediateStations.size() - 1)) {
-          builder.append(", ");
-        }
-      }
-
-      builder.append("]");
-      return builder.toString();
-    }
-
-    @Override
-    Map<String, Object> serialize() {
-      final Map<String, Object> map = new HashMap<>();
-
-      map.put("tag", tag);
-      map.put("duration", duration);
-      map.put("walkingDistance", walkingDistance);
-      map.put("color", color);
-      map.put("lineName", lineName);
-      map.put("lineId", lineId);
-      map.put("directionDesc", directionDesc);
-      map.put("interval", interval);
-      map.put("intermediateStations.size", intermediateStations.size());
-      map.put("points.startPoint", points.startPoint.serialize());
-      map.put("points.endPoint", points.endPoint.serialize());
-
-      return map;
-    }
-  }
-
+public class YandexMapController implements PlatformView, MethodChannel.MethodCallHandler {
   private final MapView mapView;
   private final MethodChannel methodChannel;
   private final PluginRegistry.Registrar pluginRegistrar;
+  private final MapServices services;
   private YandexUserLocationObjectListener yandexUserLocationObjectListener;
   private YandexMapObjectTapListener yandexMapObjectTapListener;
   private UserLocationLayer userLocationLayer;
-  private List<PlacemarkMapObject> placemarks = new ArrayList<>();
-  private List<PolylineMapObject> polylines = new ArrayList<>();
-  private List<SectionInfo> masstransitSectionInfoList = new ArrayList<>();
-  private List<RoutePoint> masstransitRoutePointsList = new ArrayList<>();
+  private final IntObjectMap<PlacemarkMapObject> placemarks = new IntObjectMap<>();
+  private final IntObjectMap<PolylineMapObject> polylines = new IntObjectMap<>();
+  private final IntObjectMap<PolylineTrack<Point>> polylineTracks = new IntObjectMap<>();
+  private final IntObjectMap<SimplifiedPolyline> simplifiedPolylines = new IntObjectMap<>();
+  private int simplificationLevel;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // Icon decodes and distance matrices of this map on the executors shared by all maps
+  private final TaskGroup backgroundTasks = new TaskGroup();
+  // Callbacks posted by background tasks which were already running when the map was disposed
+  private boolean disposed = false;
+  // Answered when computed or when the map is disposed, whichever comes first
+  private final Set<MethodChannel.Result> pendingDistanceMatrices = new HashSet<>();
   private String userLocationArrowIconName;
   private String userLocationPinIconName;
 
-  private MasstransitRouter masstransitRouter;
-  private PedestrianRouter pedestrianRouter;
-  private BicycleRouter bicycleRouter;
-  private DrivingRouter drivingRouter;
-
-  private final List<PolylineMapObject> routePolylines = new ArrayList<>();
+  // MapKit keeps session listeners weakly, in-flight requests hold them and their sessions
+  private final IntObjectMap<RouteRequest> routeRequests = new IntObjectMap<>();
+  private final IntObjectMap<SearchRequest> searchRequests = new IntObjectMap<>();
+  private TypedSearch pendingTypedSearch;
+  private SearchRequest typedSearchRequest;
+  private int requestIdCounter = 0;
+
+  private final IntObjectMap<PolylineMapObject> routePolylines = new IntObjectMap<>();
+  private final IntObjectMap<SimplifiedPolyline> simplifiedRoutePolylines = new IntObjectMap<>();
+  private int routePolylinesCounter = 0;
+  private final YandexCameraListener yandexCameraListener;
+  private final PlacemarkClusterer placemarkClusterer;
+  private VirtualPlacemarkLayer virtualPlacemarkLayer;
+  private CameraEvents cameraEvents;
+  private ViewportDiff viewportDiff;
+  private final MethodMetrics metrics = new MethodMetrics();
+  private MetricsLog metricsLog;
+  private final PointGridIndex.Metric geoMetric = new GeoMetric();
+  // MapKit is not documented to be thread safe, so distance matrices, large ones computed
+  // on worker threads, use a pure Java metric on every thread to give the same distances
+  private final PointGridIndex.Metric workerMetric = new HaversineMetric();
+  private final MapCore core;
   private GeoObjectTapListener geoObjectTapListener;
 
-  private MethodChannel.Result estimationRouteChannel;
-  private MethodChannel.Result buildRouteChannel;
-  private MethodChannel.Result searchChannel;
-
-  private SearchManager searchManager;
-  private Session searchSession;
-
-  public YandexMapController(int id, Context context, PluginRegistry.Registrar registrar) {
-    MapKitFactory.initialize(context);
-    TransportFactory.initialize(context);
-    DirectionsFactory.initialize(context);
 
+  public YandexMapController(
+    int id,
+    Context context,
+    PluginRegistry.Registrar registrar,
+    MapServices services,
+    Map<String, Object> creationParams
+  ) {
+    this.services = services;
+    services.initializeMapKit();
     mapView = new MapView(context);
-    MapKitFactory.getInstance().onStart();
+    services.acquire();
     mapView.onStart();
     pluginRegistrar = registrar;
     yandexMapObjectTapListener = new YandexMapObjectTapListener();
+    yandexCameraListener = new YandexCameraListener();
     userLocationLayer = MapKitFactory.getInstance().createUserLocationLayer(mapView.getMapWindow());
     yandexUserLocationObjectListener = new YandexUserLocationObjectListener(registrar);
 
@@ -283,14 +136,60 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
             .getLogo()
             .setAlignment(new Alignment(HorizontalAlignment.RIGHT, VerticalAlignment.TOP));
 
-    masstransitRouter = TransportFactory.getInstance().createMasstransitRouter();
-    pedestrianRouter = TransportFactory.getInstance().createPedestrianRouter();
-    bicycleRouter = TransportFactory.getInstance().createBicycleRouter();
-    drivingRouter = DirectionsFactory.getInstance().createDrivingRouter();
+    simplificationLevel = SimplifiedPolyline.levelForZoom(mapView.getMap().getCameraPosition().getZoom());
+    mapView.getMap().addCameraListener(yandexCameraListener);
+
+    placemarkClusterer = new PlacemarkClusterer(
+      mapView.getMap().getMapObjects(),
+      context.getResources().getDisplayMetrics().density,
+      new YandexClusterTapListener()
+    );
+
+    preload(creationParams);
+
+    core = new MapCore(
+      new YandexMapBackend(),
+      new YandexRouterBackend(),
+      new YandexSearchBackend(),
+      new HandlerScheduler(),
+      new ChannelEventSink(),
+      geoMetric
+    );
+  }
+
+  /** Creates shared routers of `preloadRouteModes` and the search manager if `preloadSearch` is set */
+  @SuppressWarnings("unchecked")
+  private void preload(Map<String, Object> creationParams) {
+    if (creationParams == null) {
+      return;
+    }
+
+    final List<String> preloadRouteModes = (List<String>) creationParams.get("preloadRouteModes");
+
+    if (preloadRouteModes != null) {
+      for (String mode : preloadRouteModes) {
+        switch (mode) {
+          case "masstransit":
+            services.getMasstransitRouter();
+            break;
+          case "pedestrian":
+            services.getPedestrianRouter();
+            break;
+          case "bicycle":
+            services.getBicycleRouter();
+            break;
+          case "driving":
+            services.getDrivingRouter();
+            break;
+          default:
+            Log.w("PreloadError", "Unknown route mode: " + mode);
+        }
+      }
+    }
 
-    // Search
-    SearchFactory.initialize(context);
-    searchManager = SearchFactory.getInstance().createSearchManager(SearchManagerType.COMBINED);
+    if (Boolean.TRUE.equals(creationParams.get("preloadSearch"))) {
+      services.getSearchManager();
+    }
   }
 
   @Override
@@ -338,8 +237,33 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
 
   @Override
   public void dispose() {
+    disposed = true;
+    methodChannel.setMethodCallHandler(null);
+    backgroundTasks.cancelAll();
+    cancelRequests();
+    disableCameraEvents();
+    disableViewportChanges();
+    setMetricsLogInterval(0);
+    mainHandler.removeCallbacksAndMessages(null);
+
+    mapView.getMap().removeCameraListener(yandexCameraListener);
+
+    if (geoObjectTapListener != null) {
+      mapView.getMap().removeTapListener(geoObjectTapListener);
+      geoObjectTapListener = null;
+    }
+
+    userLocationLayer.setObjectListener(null);
+    userLocationLayer.setVisible(false);
+
+    // Removes placemarks with their tap listeners and drops cluster icons,
+    // icons decoded for this map stay in the shared cache until the last map is disposed
+    clearRoute();
+    core.dispose();
+    virtualPlacemarkLayer = null;
+
     mapView.onStop();
-    MapKitFactory.getInstance().onStop();
+    services.release();
   }
 
   @SuppressWarnings("unchecked")
@@ -392,11 +316,6 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     moveWithParams(params, mapView.getMap().cameraPosition(boundingBox));
   }
 
-  @SuppressWarnings("unchecked")
-  private void addPlacemark(MethodCall call) {
-    addPlacemarkToMap(((Map<String, Object>) call.arguments));
-  }
-
   private Map<String, Object> getTargetPoint() {
     Point point = mapView.getMapWindow().getMap().getCameraPosition().getTarget();
     Map<String, Object> arguments = new HashMap<>();
@@ -406,41 +325,189 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     return arguments;
   }
 
+  /**
+   * Starts sending `onCameraPositionChanged` at most `maxFrequency` times per second,
+   * zero `maxFrequency` sends every position and `onlyFinished` sends only positions of finished moves
+   */
   @SuppressWarnings("unchecked")
-  private void removePlacemark(MethodCall call) {
+  private void enableCameraEvents(MethodCall call) {
     Map<String, Object> params = ((Map<String, Object>) call.arguments);
-    MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-    Iterator<PlacemarkMapObject> iterator = placemarks.iterator();
+    int maxFrequency = ((Number) params.get("maxFrequency")).intValue();
 
-    while (iterator.hasNext()) {
-      PlacemarkMapObject placemarkMapObject = iterator.next();
-      if (placemarkMapObject.getUserData().equals(params.get("hashCode"))) {
-        mapObjects.remove(placemarkMapObject);
-        iterator.remove();
-      }
+    disableCameraEvents();
+    cameraEvents = new CameraEvents(
+      maxFrequency > 0 ? 1000 / maxFrequency : 0,
+      Boolean.TRUE.equals(params.get("onlyFinished"))
+    );
+  }
+
+  private void disableCameraEvents() {
+    if (cameraEvents != null) {
+      cameraEvents.cancel();
+      cameraEvents = null;
+    }
+  }
+
+  private static Map<String, Object> serializeCameraPosition(CameraPosition cameraPosition, boolean finished) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("target", serializePoint(cameraPosition.getTarget()));
+    arguments.put("zoom", (double) cameraPosition.getZoom());
+    arguments.put("tilt", (double) cameraPosition.getTilt());
+    arguments.put("azimuth", (double) cameraPosition.getAzimuth());
+    arguments.put("finished", finished);
+
+    return arguments;
+  }
+
+  private Map<String, Object> getVisibleRegion() {
+    VisibleRegion visibleRegion = mapView.getMap().getVisibleRegion();
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("topLeft", serializePoint(visibleRegion.getTopLeft()));
+    arguments.put("topRight", serializePoint(visibleRegion.getTopRight()));
+    arguments.put("bottomLeft", serializePoint(visibleRegion.getBottomLeft()));
+    arguments.put("bottomRight", serializePoint(visibleRegion.getBottomRight()));
+    arguments.put("bounds", serializeBounds(visibleBounds(visibleRegion)));
+    return arguments;
+  }
+
+  /** Starts sending `onViewportChanged` with parts of the visible region exposed by every finished camera move */
+  private void enableViewportChanges() {
+    viewportDiff = new ViewportDiff();
+    viewportDiff.update(visibleBounds(mapView.getMap().getVisibleRegion()));
+  }
+
+  private void disableViewportChanges() {
+    viewportDiff = null;
+  }
+
+  private void updateViewport(VisibleRegion visibleRegion) {
+    double[] bounds = visibleBounds(visibleRegion);
+    List<double[]> exposed = viewportDiff.update(bounds);
+
+    if (exposed.isEmpty()) {
+      return;
+    }
+
+    List<Map<String, Object>> exposedBounds = new ArrayList<>(exposed.size());
+
+    for (double[] exposedPart : exposed) {
+      exposedBounds.add(serializeBounds(exposedPart));
+    }
+
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("bounds", serializeBounds(bounds));
+    arguments.put("exposed", exposedBounds);
+
+    methodChannel.invokeMethod("onViewportChanged", arguments);
+  }
+
+  private static Map<String, Object> serializePoint(Point point) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("latitude", point.getLatitude());
+    arguments.put("longitude", point.getLongitude());
+    return arguments;
+  }
+
+  private static Map<String, Object> serializeBounds(double[] bounds) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("southWestLatitude", bounds[0]);
+    arguments.put("southWestLongitude", bounds[1]);
+    arguments.put("northEastLatitude", bounds[2]);
+    arguments.put("northEastLongitude", bounds[3]);
+    return arguments;
+  }
+
+  private void removePlacemarkFromMap(int key) {
+    PlacemarkMapObject placemarkMapObject = placemarks.remove(key);
+
+    if (placemarkMapObject != null) {
+      placemarkClusterer.remove(key);
+      mapView.getMap().getMapObjects().remove(placemarkMapObject);
+    }
+  }
+
+  private void updatePlacemarkPointOnMap(int key, double latitude, double longitude) {
+    PlacemarkMapObject placemarkMapObject = placemarks.get(key);
+
+    if (placemarkMapObject != null) {
+      placemarkMapObject.setGeometry(new Point(latitude, longitude));
+      placemarkClusterer.move(key);
     }
   }
 
   @SuppressWarnings("unchecked")
-  private void updatePlacemarkPoint(MethodCall call) {
+  private void enablePlacemarkVirtualization(MethodCall call) {
     Map<String, Object> params = ((Map<String, Object>) call.arguments);
-    Point point = new Point(((Double) params.get("latitude")), ((Double) params.get("longitude")));
 
-    MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-    Iterator<PlacemarkMapObject> iterator = placemarks.iterator();
+    disablePlacemarkVirtualization();
+    virtualPlacemarkLayer = new VirtualPlacemarkLayer(
+      ((Double) params.get("margin")),
+      new YandexPlacemarkMaterializer()
+    );
+    updateVirtualPlacemarks(mapView.getMap().getVisibleRegion());
+  }
 
-    while (iterator.hasNext()) {
-      PlacemarkMapObject placemarkMapObject = iterator.next();
-      if (placemarkMapObject.getUserData().equals(params.get("hashCode"))) {
-        placemarkMapObject.setGeometry(point);
-      }
+  private void disablePlacemarkVirtualization() {
+    if (virtualPlacemarkLayer == null) {
+      return;
+    }
+
+    List<Map<String, Object>> remainingParams = virtualPlacemarkLayer.drain();
+    virtualPlacemarkLayer = null;
+
+    for (Map<String, Object> params : remainingParams) {
+      addPlacemarkToMap(params);
+    }
+
+    placemarkClusterer.flush();
+  }
+
+  private void updateVirtualPlacemarks(VisibleRegion visibleRegion) {
+    if (virtualPlacemarkLayer == null) {
+      return;
     }
+
+    double[] bounds = visibleBounds(visibleRegion);
+
+    virtualPlacemarkLayer.onVisibleRegionChanged(bounds[0], bounds[1], bounds[2], bounds[3]);
+    placemarkClusterer.flush();
+  }
+
+  /** Bounding box of the region as min latitude, min longitude, max latitude, max longitude */
+  private static double[] visibleBounds(VisibleRegion visibleRegion) {
+    Point[] corners = {
+      visibleRegion.getTopLeft(),
+      visibleRegion.getTopRight(),
+      visibleRegion.getBottomLeft(),
+      visibleRegion.getBottomRight()
+    };
+    double minLatitude = 90;
+    double minLongitude = 180;
+    double maxLatitude = -90;
+    double maxLongitude = -180;
+
+    for (Point corner : corners) {
+      minLatitude = Math.min(minLatitude, corner.getLatitude());
+      minLongitude = Math.min(minLongitude, corner.getLongitude());
+      maxLatitude = Math.max(maxLatitude, corner.getLatitude());
+      maxLongitude = Math.max(maxLongitude, corner.getLongitude());
+    }
+
+    return new double[] { minLatitude, minLongitude, maxLatitude, maxLongitude };
   }
 
   private void addPlacemarkToMap(Map<String, Object> params) {
     Point point = new Point(((Double) params.get("latitude")), ((Double) params.get("longitude")));
     MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
     PlacemarkMapObject placemark = mapObjects.addPlacemark(point);
+    int key = MapCore.hashCodeKey(params.get("hashCode"));
+    PlacemarkMapObject previousPlacemark = placemarks.put(key, placemark);
+
+    if (previousPlacemark != null) {
+      placemarkClusterer.remove(key);
+      mapObjects.remove(previousPlacemark);
+    }
+
     String iconName = (String) params.get("iconName");
     byte[] rawImageData = (byte[]) params.get("rawImageData");
 
@@ -450,26 +517,67 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     placemark.addTapListener(yandexMapObjectTapListener);
 
     if (iconName != null) {
-      placemark.setIcon(ImageProvider.fromAsset(mapView.getContext(), pluginRegistrar.lookupKeyForAsset(iconName)));
+      placemark.setIcon(services.iconCache.fromAsset(mapView.getContext(), pluginRegistrar.lookupKeyForAsset(iconName)));
     }
 
     if (rawImageData != null) {
-      Bitmap bitmapData = BitmapFactory.decodeByteArray(rawImageData, 0, rawImageData.length);
-      placemark.setIcon(ImageProvider.fromBitmap(bitmapData));
+      Number rawImageMaxSize = (Number) params.get("rawImageMaxSize");
+      loadPlacemarkIcon(
+        placemark,
+        rawImageData,
+        rawImageMaxSize != null ? rawImageMaxSize.intValue() : BitmapDecoder.ORIGINAL_SIZE,
+        Boolean.TRUE.equals(params.get("rawImageUseRgb565"))
+      );
     }
 
-    placemarks.add(placemark);
+    placemarkClusterer.add(key, placemark);
   }
 
-  private void addPolyline(MethodCall cell) {
-    Map<String, Object> params = (Map<String, Object>) cell.arguments;
-    List<Map<String, Object>> coordinates = (List<Map<String, Object>>) params.get("coordinates");
-    ArrayList<Point> polylineCoordinates = new ArrayList<>();
-    for (Map<String, Object> c : coordinates) {
-      Point p = new Point((Double) c.get("latitude"), (Double) c.get("longitude"));
-      polylineCoordinates.add(p);
+  private void loadPlacemarkIcon(
+    final PlacemarkMapObject placemark,
+    final byte[] rawImageData,
+    final int maxSize,
+    final boolean rgb565
+  ) {
+    final int key = MapCore.hashCodeKey(placemark.getUserData());
+
+    try {
+      backgroundTasks.execute(services.getIconDecodeExecutor(), new Runnable() {
+        @Override
+        public void run() {
+          final ImageProvider imageProvider = services.iconCache.fromRawImageData(rawImageData, maxSize, rgb565);
+
+          if (imageProvider == null) {
+            return;
+          }
+
+          mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+              // Placemark could have been removed or replaced while its icon was decoding
+              if (!disposed && placemarks.get(key) == placemark) {
+                placemark.setIcon(imageProvider);
+              }
+            }
+          });
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      Log.w("IconDecodeError", "Icon decoder is shut down");
     }
+  }
+
+  private void addPolylineToMap(int key, double[] coordinates, Map<String, Object> params) {
+    List<Point> polylineCoordinates = toPoints(coordinates);
     MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
+    SimplifiedPolyline simplifiedPolyline = null;
+
+    // Geodesic lines are not straight in Mercator projection, so they are not simplified
+    if (Boolean.TRUE.equals(params.get("simplify")) && !((boolean) params.get("isGeodesic"))) {
+      simplifiedPolyline = new SimplifiedPolyline(polylineCoordinates);
+      polylineCoordinates = simplifiedPolyline.getPoints(simplificationLevel);
+    }
+
     PolylineMapObject polyline = mapObjects.addPolyline(new Polyline(polylineCoordinates));
 
     String outlineColorString = String.valueOf(params.get("outlineColor"));
@@ -488,23 +596,161 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     polyline.setDashOffset(((Double) params.get("dashOffset")).floatValue());
     polyline.setGapLength(((Double) params.get("gapLength")).floatValue());
 
-    polylines.add(polyline);
+    PolylineMapObject previousPolyline = polylines.put(key, polyline);
+    removePolylineTrack(key);
+
+    if (simplifiedPolyline != null) {
+      simplifiedPolylines.put(key, simplifiedPolyline);
+    } else {
+      simplifiedPolylines.remove(key);
+    }
+
+    if (previousPolyline != null) {
+      mapObjects.remove(previousPolyline);
+    }
   }
 
-  private void removePolyline(MethodCall call) {
-    Map<String, Object> params = ((Map<String, Object>) call.arguments);
+  private void appendPolylinePointsOnMap(int key, double[] coordinates, Integer maxLength) {
+    PolylineMapObject polyline = polylines.get(key);
+
+    if (polyline == null) {
+      return;
+    }
+
+    PolylineTrack<Point> track = polylineTracks.get(key);
+
+    if (track == null) {
+      // Live tracks change on every fix, precomputed simplification levels would go stale
+      SimplifiedPolyline simplifiedPolyline = simplifiedPolylines.remove(key);
+      List<Point> points = simplifiedPolyline != null ?
+        simplifiedPolyline.getPoints(SimplifiedPolyline.FULL_LEVEL) :
+        polyline.getGeometry().getPoints();
+      track = new PolylineTrack<>(
+        PolylineTrack.DEFAULT_CHUNK_LENGTH,
+        maxLength != null ? maxLength : RingBuffer.UNBOUNDED,
+        new PolylineChunks(polyline)
+      );
+      track.addAll(points);
+      polylineTracks.put(key, track);
+    } else if (maxLength != null) {
+      track.setMaxLength(maxLength);
+    }
+
+    track.addAll(toPoints(coordinates));
+  }
+
+  private void removePolylineTrack(int key) {
+    PolylineTrack<Point> track = polylineTracks.remove(key);
+
+    if (track != null) {
+      track.clear();
+    }
+  }
+
+  private static List<Point> toPoints(double[] coordinates) {
+    List<Point> points = new ArrayList<>(coordinates.length / 2);
+
+    for (int i = 0; i < coordinates.length; i += 2) {
+      points.add(new Point(coordinates[i], coordinates[i + 1]));
+    }
+
+    return points;
+  }
+
+  private void removePolylineFromMap(int key) {
     MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-    Iterator<PolylineMapObject> iterator = polylines.iterator();
+    PolylineMapObject polylineMapObject = polylines.remove(key);
+    removePolylineTrack(key);
+    simplifiedPolylines.remove(key);
+
+    if (polylineMapObject != null) {
+      mapObjects.remove(polylineMapObject);
+    }
+  }
+
+  private PolylineMapObject addRoutePolyline(Polyline geometry) {
+    final SimplifiedPolyline simplifiedPolyline = new SimplifiedPolyline(geometry.getPoints());
+    final PolylineMapObject polylineMapObject = mapView.getMap().getMapObjects().addPolyline(
+      new Polyline(simplifiedPolyline.getPoints(simplificationLevel))
+    );
+    final int key = routePolylinesCounter++;
+
+    routePolylines.put(key, polylineMapObject);
+    simplifiedRoutePolylines.put(key, simplifiedPolyline);
+
+    return polylineMapObject;
+  }
+
+  private void updateSimplificationLevel(float zoom) {
+    final int level = SimplifiedPolyline.levelForZoom(zoom);
+
+    if (level == simplificationLevel) {
+      return;
+    }
+
+    simplificationLevel = level;
+    applySimplificationLevel(polylines, simplifiedPolylines);
+    applySimplificationLevel(routePolylines, simplifiedRoutePolylines);
+  }
+
+  private void applySimplificationLevel(
+    IntObjectMap<PolylineMapObject> polylineMapObjects,
+    IntObjectMap<SimplifiedPolyline> simplifiedPolylineGeometries
+  ) {
+    final IntObjectMap.Cursor<SimplifiedPolyline> cursor = simplifiedPolylineGeometries.cursor();
+
+    while (cursor.next()) {
+      final PolylineMapObject polylineMapObject = polylineMapObjects.get(cursor.key());
 
-    while (iterator.hasNext()) {
-      PolylineMapObject polylineMapObject = iterator.next();
-      if (polylineMapObject.getUserData().equals(params.get("hashCode"))) {
-        mapObjects.remove(polylineMapObject);
-        iterator.remove();
+      if (polylineMapObject != null) {
+        polylineMapObject.setGeometry(new Polyline(cursor.value().getPoints(simplificationLevel)));
       }
     }
   }
 
+  @SuppressWarnings("unchecked")
+  private void setIconCacheMaxBytes(MethodCall call) {
+    Map<String, Object> params = ((Map<String, Object>) call.arguments);
+    services.iconCache.setMaxBytes(((Number) params.get("maxBytes")).longValue());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void enableClustering(MethodCall call) {
+    Map<String, Object> params = ((Map<String, Object>) call.arguments);
+
+    placemarkClusterer.enable(
+      placemarks,
+      ((Double) params.get("cellSize")),
+      ((Number) params.get("minClusterSize")).intValue(),
+      mapView.getMap().getCameraPosition().getZoom()
+    );
+  }
+
+  private Map<String, Object> getMapObjectsStats() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("placemarks", registryStats(placemarks));
+    arguments.put("polylines", registryStats(polylines));
+    arguments.put("routePolylines", registryStats(routePolylines));
+
+    if (virtualPlacemarkLayer != null) {
+      Map<String, Object> virtualStats = new HashMap<>();
+      virtualStats.put("count", virtualPlacemarkLayer.size());
+      virtualStats.put("materializedCount", virtualPlacemarkLayer.materializedSize());
+      virtualStats.put("footprintBytes", virtualPlacemarkLayer.footprintBytes());
+      arguments.put("virtualPlacemarks", virtualStats);
+    }
+
+    return arguments;
+  }
+
+  private static Map<String, Object> registryStats(IntObjectMap<?> registry) {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("count", registry.size());
+    stats.put("capacity", registry.capacity());
+    stats.put("footprintBytes", registry.footprintBytes());
+    return stats;
+  }
+
   private void moveWithParams(Map<String, Object> params, CameraPosition cameraPosition) {
     if (((Boolean) params.get("animate"))) {
       Animation.Type type = ((Boolean) params.get("smoothAnimation")) ? Animation.Type.SMOOTH : Animation.Type.LINEAR;
@@ -545,9 +791,7 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
       null);
   }
 
-  private List<RequestPoint> getRouterPoints(MethodCall call) {
-    final List<Map<String, Object>> params = ((List<Map<String, Object>>) call.arguments);
-
+  private List<RequestPoint> getRouterPoints(List<Map<String, Object>> params) {
     final List<RequestPoint> points = new ArrayList<>();
 
     for (int i = 0; i < params.size(); ++i) {
@@ -569,85 +813,322 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     return points;
   }
 
-  private void requestMasstransitRoute(MethodCall call) {
+  private static List<RequestPoint> getRouterPoints(double[] coordinates) {
+    final int count = coordinates.length / 2;
+    final List<RequestPoint> points = new ArrayList<>(count);
+
+    for (int i = 0; i < count; ++i) {
+      final RequestPointType type = i == 0 || i == count - 1 ? RequestPointType.WAYPOINT : RequestPointType.VIAPOINT;
+      final Point point = new Point(coordinates[i * 2], coordinates[i * 2 + 1]);
+
+      points.add(new RequestPoint(point, type, null));
+    }
+
+    return points;
+  }
+
+  @SuppressWarnings("unchecked")
+  private RouteRequest requestMasstransitRoute(
+    List<RequestPoint> points,
+    MethodChannel.Result result,
+    RouteResultType resultType
+  ) {
+    final List<String> avoidTypes = new ArrayList<>();
+    final List<String> acceptTypes = new ArrayList<>();
     MasstransitOptions options = new MasstransitOptions(
-      new ArrayList<String>(),
-      new ArrayList<String>(),
+      avoidTypes,
+      acceptTypes,
       new TimeOptions()
     );
 
-    if (buildRouteChannel != null) {
+    if (resultType == RouteResultType.ROUTE) {
       clearRoute();
     }
 
-    masstransitRouter.requestRoutes(getRouterPoints(call), options, this);
-  }
+    final String cacheKey = routeCacheKey("masstransit", points, "avoid=" + avoidTypes + ",accept=" + acceptTypes);
+    final MasstransitRouteRequest request = new MasstransitRouteRequest(
+      "masstransitRoute",
+      cacheKey,
+      result,
+      resultType
+    );
+    final List<Route> cachedRoutes = (List<Route>) services.routeCache.get(cacheKey);
 
-  private void requestPedestrianRoute(MethodCall call) {
-    if (buildRouteChannel != null) {
-      clearRoute();
+    if (cachedRoutes != null) {
+      onMasstransitRoutes(request, cachedRoutes);
+      return request;
     }
 
-    pedestrianRouter.requestRoutes(getRouterPoints(call), new TimeOptions(), this);
+    routeRequests.put(request.id, request);
+    request.session = services.getMasstransitRouter().requestRoutes(points, options, request);
+
+    return request;
   }
 
-  private void requestBicycleRoute(MethodCall call) {
-    if (buildRouteChannel != null) {
+  @SuppressWarnings("unchecked")
+  private RouteRequest requestPedestrianRoute(
+    List<RequestPoint> points,
+    MethodChannel.Result result,
+    RouteResultType resultType
+  ) {
+    if (resultType == RouteResultType.ROUTE) {
       clearRoute();
     }
 
-    bicycleRouter.requestRoutes(getRouterPoints(call), this);
+    final String cacheKey = routeCacheKey("pedestrian", points, "");
+    final MasstransitRouteRequest request = new MasstransitRouteRequest(
+      "pedestrianRoute",
+      cacheKey,
+      result,
+      resultType
+    );
+    final List<Route> cachedRoutes = (List<Route>) services.routeCache.get(cacheKey);
+
+    if (cachedRoutes != null) {
+      onMasstransitRoutes(request, cachedRoutes);
+      return request;
+    }
+
+    routeRequests.put(request.id, request);
+    request.session = services.getPedestrianRouter().requestRoutes(points, new TimeOptions(), request);
+
+    return request;
   }
 
-  private void requestDrivingRoute(MethodCall call) {
-    if (buildRouteChannel != null) {
+  @SuppressWarnings("unchecked")
+  private RouteRequest requestBicycleRoute(
+    List<RequestPoint> points,
+    MethodChannel.Result result,
+    RouteResultType resultType
+  ) {
+    if (resultType == RouteResultType.ROUTE) {
       clearRoute();
     }
 
-    final DrivingOptions options = new DrivingOptions();
-    drivingRouter.requestRoutes(getRouterPoints(call), options, this);
-  }
+    final String cacheKey = routeCacheKey("bicycle", points, "");
+    final BicycleRouteRequest request = new BicycleRouteRequest(cacheKey, result, resultType);
+    final List<com.yandex.mapkit.transport.bicycle.Route> cachedRoutes =
+      (List<com.yandex.mapkit.transport.bicycle.Route>) services.routeCache.get(cacheKey);
 
-  private void setFocusRect(MethodCall call) {
-    Map<String, Object> params = (Map<String, Object>) call.arguments;
+    if (cachedRoutes != null) {
+      onBicycleRoutes(request, cachedRoutes);
+      return request;
+    }
 
-    final Double topLeft = (Double) params.get("topLeft");
-    final Double topRight = (Double) params.get("topRight");
-    final Double bottomLeft = (Double) params.get("bottomLeft");
-    final Double bottomRight = (Double) params.get("bottomRight");
+    routeRequests.put(request.id, request);
+    request.session = services.getBicycleRouter().requestRoutes(points, request);
 
-    mapView
-        .setFocusRect(
-          new ScreenRect(
-            new ScreenPoint(topLeft.floatValue(), topRight.floatValue()),
-            new ScreenPoint(bottomLeft.floatValue(), bottomRight.floatValue())
-          )
-        );
+    return request;
   }
 
-  private void search(MethodCall call) {
-    final Map<String, Object> params = ((Map<String, Object>) call.arguments);
-    final String query = (String) params.get("query");
-    final Double userPositionLatitude = (Double) params.get("userPositionLatitude");
-    final Double userPositionLongitude = (Double) params.get("userPositionLongitude");
+  @SuppressWarnings("unchecked")
+  private RouteRequest requestDrivingRoute(
+    List<RequestPoint> points,
+    MethodChannel.Result result,
+    RouteResultType resultType
+  ) {
+    if (resultType == RouteResultType.ROUTE) {
+      clearRoute();
+    }
 
-    final SearchOptions options = new SearchOptions();
+    final String cacheKey = routeCacheKey("driving", points, "");
+    final DrivingRouteRequest request = new DrivingRouteRequest(cacheKey, result, resultType);
+    final List<DrivingRoute> cachedRoutes = (List<DrivingRoute>) services.routeCache.get(cacheKey);
+
+    if (cachedRoutes != null) {
+      onDrivingRoutes(request, cachedRoutes);
+      return request;
+    }
+
+    final DrivingOptions options = new DrivingOptions();
+    routeRequests.put(request.id, request);
+    request.session = services.getDrivingRouter().requestRoutes(points, options, request);
+
+    return request;
+  }
+
+  private RouteRequest requestRoute(
+    String mode,
+    List<RequestPoint> points,
+    MethodChannel.Result result,
+    RouteResultType resultType
+  ) {
+    switch (mode) {
+      case "masstransit":
+        return requestMasstransitRoute(points, result, resultType);
+      case "pedestrian":
+        return requestPedestrianRoute(points, result, resultType);
+      case "bicycle":
+        return requestBicycleRoute(points, result, resultType);
+      case "driving":
+        return requestDrivingRoute(points, result, resultType);
+      default:
+        throw new IllegalArgumentException("Unknown route mode: " + mode);
+    }
+  }
+
+  private static String routeCacheKey(String mode, List<RequestPoint> points, String options) {
+    final double[] coordinates = new double[points.size() * 2];
+
+    for (int i = 0; i < points.size(); i++) {
+      coordinates[i * 2] = points.get(i).getPoint().getLatitude();
+      coordinates[i * 2 + 1] = points.get(i).getPoint().getLongitude();
+    }
+
+    return ResponseCache.key(mode, coordinates, ResponseCache.ROUTE_QUANTUM, options);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void configureResponseCache(ResponseCache cache, MethodCall call) {
+    Map<String, Object> params = ((Map<String, Object>) call.arguments);
+    cache.configure(
+      ((Number) params.get("maxEntries")).intValue(),
+      ((Number) params.get("ttl")).longValue()
+    );
+  }
+
+  private void setFocusRect(MethodCall call) {
+    Map<String, Object> params = (Map<String, Object>) call.arguments;
+
+    final Double topLeft = (Double) params.get("topLeft");
+    final Double topRight = (Double) params.get("topRight");
+    final Double bottomLeft = (Double) params.get("bottomLeft");
+    final Double bottomRight = (Double) params.get("bottomRight");
+
+    mapView
+        .setFocusRect(
+          new ScreenRect(
+            new ScreenPoint(topLeft.floatValue(), topRight.floatValue()),
+            new ScreenPoint(bottomLeft.floatValue(), bottomRight.floatValue())
+          )
+        );
+  }
+
+  private void search(MethodCall call, MethodChannel.Result result) {
+    final Map<String, Object> params = ((Map<String, Object>) call.arguments);
+    final String query = (String) params.get("query");
+
+    if (query == null) {
+      result.success(new ArrayList<Map<String, Object>>());
+      return;
+    }
+
+    final VisibleRegion visibleRegion = mapView.getMap().getVisibleRegion();
+    final String cacheKey = searchCacheKey(query, params, visibleRegion);
+    final Object cachedResults = services.searchCache.get(cacheKey);
+
+    if (cachedResults != null) {
+      result.success(cachedResults);
+      return;
+    }
+
+    submitSearch(query, params, visibleRegion, cacheKey, result);
+  }
+
+  /**
+   * Searches only once `debounce` milliseconds pass without another call.
+   *
+   * A new call answers the previous one with `null`, whether it is still waiting
+   * or already submitted, in which case its session is cancelled.
+   */
+  @SuppressWarnings("unchecked")
+  private void searchAsYouType(MethodCall call, MethodChannel.Result result) {
+    final Map<String, Object> params = ((Map<String, Object>) call.arguments);
+    final String query = (String) params.get("query");
+
+    supersedeTypedSearch();
+
+    if (query == null || query.trim().isEmpty()) {
+      result.success(new ArrayList<Map<String, Object>>());
+      return;
+    }
+
+    final VisibleRegion visibleRegion = mapView.getMap().getVisibleRegion();
+    final String cacheKey = searchCacheKey(query, params, visibleRegion);
+    final Object cachedResults = services.searchCache.get(cacheKey);
+
+    if (cachedResults != null) {
+      result.success(cachedResults);
+      return;
+    }
+
+    pendingTypedSearch = new TypedSearch(query, params, visibleRegion, cacheKey, result);
+    mainHandler.postDelayed(pendingTypedSearch, ((Number) params.get("debounce")).longValue());
+  }
+
+  private void supersedeTypedSearch() {
+    if (pendingTypedSearch != null) {
+      mainHandler.removeCallbacks(pendingTypedSearch);
+      pendingTypedSearch.result.success(null);
+      pendingTypedSearch = null;
+    }
+
+    if (typedSearchRequest != null && searchRequests.remove(typedSearchRequest.id) != null) {
+      typedSearchRequest.cancel();
+      typedSearchRequest.result.success(null);
+    }
+
+    typedSearchRequest = null;
+  }
+
+  private SearchRequest submitSearch(
+    String query,
+    Map<String, Object> params,
+    VisibleRegion visibleRegion,
+    String cacheKey,
+    MethodChannel.Result result
+  ) {
+    final SearchRequest request = new SearchRequest(cacheKey, result);
+
+    searchRequests.put(request.id, request);
+    request.session = services.getSearchManager().submit(
+      query,
+      VisibleRegionUtils.toPolygon(visibleRegion),
+      getSearchOptions(params),
+      request
+    );
+
+    return request;
+  }
+
+  private static SearchOptions getSearchOptions(Map<String, Object> params) {
+    final Double userPositionLatitude = (Double) params.get("userPositionLatitude");
+    final Double userPositionLongitude = (Double) params.get("userPositionLongitude");
+
+    final SearchOptions options = new SearchOptions();
 
     if (userPositionLatitude != null && userPositionLongitude != null) {
       final Point userPosition = new Point(userPositionLatitude, userPositionLongitude);
       options.setUserPosition(userPosition);
     }
 
-    if (query != null) {
-      searchSession = searchManager.submit(
-        query,
-        VisibleRegionUtils.toPolygon(mapView.getMap().getVisibleRegion()),
-        options,
-        this
-      );
+    return options;
+  }
+
+  /** Starts or stops logging all metrics every `interval` milliseconds, zero `interval` stops it */
+  private void setMetricsLogInterval(long interval) {
+    if (metricsLog != null) {
+      mainHandler.removeCallbacks(metricsLog);
+      metricsLog = null;
+    }
+
+    if (interval > 0) {
+      metricsLog = new MetricsLog(interval);
+      mainHandler.postDelayed(metricsLog, interval);
     }
   }
 
+  private static String searchCacheKey(String query, Map<String, Object> params, VisibleRegion visibleRegion) {
+    final double[] bounds = visibleBounds(visibleRegion);
+    final Double userPositionLatitude = (Double) params.get("userPositionLatitude");
+    final Double userPositionLongitude = (Double) params.get("userPositionLongitude");
+    final double[] coordinates = userPositionLatitude != null && userPositionLongitude != null ?
+      new double[] { bounds[0], bounds[1], bounds[2], bounds[3], userPositionLatitude, userPositionLongitude } :
+      bounds;
+
+    return ResponseCache.key("search", coordinates, ResponseCache.SEARCH_QUANTUM, query);
+  }
+
   private double getDistance(MethodCall call) {
     final Map<String, Object> params = ((Map<String, Object>) call.arguments);
     final Double srcLatitude = (Double) params.get("srcLatitude");
@@ -661,6 +1142,93 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     );
   }
 
+  @SuppressWarnings("unchecked")
+  private void distanceMatrix(MethodCall call, final MethodChannel.Result result) {
+    final Map<String, Object> params = ((Map<String, Object>) call.arguments);
+    final double[] sources = PackedCoordinates.toDoubles(params.get("sources"));
+    final double[] destinations = PackedCoordinates.toDoubles(params.get("destinations"));
+
+    if ((sources.length / 2) * (destinations.length / 2) < DistanceMatrix.PARALLEL_THRESHOLD) {
+      result.success(DistanceMatrix.compute(sources, destinations, workerMetric));
+      return;
+    }
+
+    pendingDistanceMatrices.add(result);
+
+    try {
+      DistanceMatrix.computeAsync(
+        sources,
+        destinations,
+        workerMetric,
+        backgroundTasks.on(services.getComputeExecutor()),
+        services.computeParallelism,
+        new DistanceMatrix.Callback() {
+          @Override
+          public void onComputed(final double[] distances) {
+            mainHandler.post(new Runnable() {
+              @Override
+              public void run() {
+                if (pendingDistanceMatrices.remove(result)) {
+                  result.success(distances);
+                }
+              }
+            });
+          }
+
+          @Override
+          public void onError(final RuntimeException e) {
+            mainHandler.post(new Runnable() {
+              @Override
+              public void run() {
+                if (pendingDistanceMatrices.remove(result)) {
+                  result.error("DistanceMatrixError", e.getMessage(), null);
+                }
+              }
+            });
+          }
+        }
+      );
+    } catch (RejectedExecutionException e) {
+      pendingDistanceMatrices.remove(result);
+      result.error("DistanceMatrixError", "Compute executor is shut down", null);
+    }
+  }
+
+  /**
+   * Cancels everything in flight when the map is disposed.
+   *
+   * Pending method calls are answered with `MapCore.DISPOSED_ERROR`,
+   * Dart futures waiting for them would keep the map alive otherwise.
+   */
+  private void cancelRequests() {
+    core.cancelAll();
+
+    for (RouteRequest request : routeRequests) {
+      request.cancel();
+      request.result.error(MapCore.DISPOSED_ERROR, MapCore.DISPOSED_MESSAGE, null);
+    }
+
+    for (SearchRequest request : searchRequests) {
+      request.cancel();
+      request.result.error(MapCore.DISPOSED_ERROR, MapCore.DISPOSED_MESSAGE, null);
+    }
+
+    for (MethodChannel.Result result : pendingDistanceMatrices) {
+      result.error(MapCore.DISPOSED_ERROR, MapCore.DISPOSED_MESSAGE, null);
+    }
+
+    routeRequests.clear();
+    searchRequests.clear();
+    pendingDistanceMatrices.clear();
+    typedSearchRequest = null;
+
+    if (pendingTypedSearch != null) {
+      mainHandler.removeCallbacks(pendingTypedSearch);
+      pendingTypedSearch.result.error(MapCore.DISPOSED_ERROR, MapCore.DISPOSED_MESSAGE, null);
+      pendingTypedSearch = null;
+    }
+  }
+
   private void clearRoute() {
     final MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
 
@@ -669,19 +1237,24 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     }
 
     routePolylines.clear();
+    simplifiedRoutePolylines.clear();
   }
 
   private void clearAll() {
     clearRoute();
-    final MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-    mapObjects.clear();
+    core.clear();
   }
 
   @Override
   public void onMethodCall(MethodCall call, MethodChannel.Result result) {
-    estimationRouteChannel = null;
-    buildRouteChannel = null;
+    final long calledAt = System.nanoTime();
 
+    handleMethodCall(call, new MeteredResult(call.method, calledAt, result));
+    metrics.recordCall(call.method, System.nanoTime() - calledAt, call.arguments);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void handleMethodCall(MethodCall call, MethodChannel.Result result) {
     switch (call.method) {
       case "showUserLayer":
         showUserLayer(call);
@@ -704,25 +1277,45 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
         result.success(null);
         break;
       case "addPlacemark":
-        addPlacemark(call);
+        core.addPlacemark((Map<String, Object>) call.arguments);
+        result.success(null);
+        break;
+      case "addPlacemarks":
+        core.addPlacemarks((List<Map<String, Object>>) call.arguments);
         result.success(null);
         break;
       case "removePlacemark":
-        removePlacemark(call);
+        core.removePlacemarks(Collections.singletonList(((Map<String, Object>) call.arguments).get("hashCode")));
+        result.success(null);
+        break;
+      case "removePlacemarks":
+        core.removePlacemarks((List<Object>) call.arguments);
         result.success(null);
         break;
       case "updatePlacemarkPoint":
-        updatePlacemarkPoint(call);
+        core.updatePlacemarkPoints(Collections.singletonList((Map<String, Object>) call.arguments));
+        result.success(null);
+        break;
+      case "updatePlacemarkPoints":
+        core.updatePlacemarkPoints((List<Map<String, Object>>) call.arguments);
         result.success(null);
         break;
       case "addPolyline":
-        addPolyline(call);
+        core.addPolyline((Map<String, Object>) call.arguments);
         result.success(null);
         break;
       case "removePolyline":
-        removePolyline(call);
+        core.removePolyline((Map<String, Object>) call.arguments);
         result.success(null);
         break;
+      case "appendPolylinePoints":
+        try {
+          core.appendPolylinePoints((Map<String, Object>) call.arguments);
+          result.success(null);
+        } catch (IllegalArgumentException e) {
+          result.error("InvalidArgumentError", e.getMessage(), null);
+        }
+        break;
       case "zoomIn":
         zoomIn();
         result.success(null);
@@ -735,50 +1328,178 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
         Map<String, Object> point = getTargetPoint();
         result.success(point);
         break;
+      case "enableCameraEvents":
+        enableCameraEvents(call);
+        result.success(null);
+        break;
+      case "disableCameraEvents":
+        disableCameraEvents();
+        result.success(null);
+        break;
+      case "getVisibleRegion":
+        result.success(getVisibleRegion());
+        break;
+      case "enableViewportChanges":
+        enableViewportChanges();
+        result.success(null);
+        break;
+      case "disableViewportChanges":
+        disableViewportChanges();
+        result.success(null);
+        break;
+      case "getMetrics":
+        result.success(metrics.serialize());
+        break;
+      case "resetMetrics":
+        metrics.reset();
+        result.success(null);
+        break;
+      case "setMetricsPayloadSizes":
+        metrics.setPayloadSizes(Boolean.TRUE.equals(((Map<String, Object>) call.arguments).get("enabled")));
+        result.success(null);
+        break;
+      case "setMetricsLogInterval":
+        setMetricsLogInterval(((Number) ((Map<String, Object>) call.arguments).get("interval")).longValue());
+        result.success(null);
+        break;
+      case "getMapObjectsStats":
+        result.success(getMapObjectsStats());
+        break;
+      case "setIconCacheMaxBytes":
+        setIconCacheMaxBytes(call);
+        result.success(null);
+        break;
+      case "getIconCacheStats":
+        result.success(services.iconCache.getStats());
+        break;
+      case "enableClustering":
+        enableClustering(call);
+        result.success(null);
+        break;
+      case "disableClustering":
+        placemarkClusterer.disable();
+        result.success(null);
+        break;
+      case "enablePlacemarkVirtualization":
+        enablePlacemarkVirtualization(call);
+        result.success(null);
+        break;
+      case "disablePlacemarkVirtualization":
+        disablePlacemarkVirtualization();
+        result.success(null);
+        break;
+      case "queryPlacemarksInBounds":
+        result.success(core.queryPlacemarksInBounds((Map<String, Object>) call.arguments));
+        break;
+      case "nearestPlacemarks":
+        result.success(core.nearestPlacemarks((Map<String, Object>) call.arguments));
+        break;
+      case "placemarksWithinRadius":
+        result.success(core.placemarksWithinRadius((Map<String, Object>) call.arguments));
+        break;
+      case "configureRouteCache":
+        configureResponseCache(services.routeCache, call);
+        result.success(null);
+        break;
+      case "getRouteCacheStats":
+        result.success(services.routeCache.getStats());
+        break;
+      case "clearRouteCache":
+        services.routeCache.clear();
+        result.success(null);
+        break;
       case "requestMasstransitRoute":
-        buildRouteChannel = result;
-        requestMasstransitRoute(call);
+        requestMasstransitRoute(getRouterPoints((List<Map<String, Object>>) call.arguments), result, RouteResultType.ROUTE);
         break;
       case "requestPedestrianRoute":
-        buildRouteChannel = result;
-        requestPedestrianRoute(call);
+        requestPedestrianRoute(getRouterPoints((List<Map<String, Object>>) call.arguments), result, RouteResultType.ROUTE);
         break;
       case "requestBicycleRoute":
-        buildRouteChannel = result;
-        requestBicycleRoute(call);
+        requestBicycleRoute(getRouterPoints((List<Map<String, Object>>) call.arguments), result, RouteResultType.ROUTE);
         break;
       case "requestDrivingRoute":
-        buildRouteChannel = result;
-        requestDrivingRoute(call);
+        requestDrivingRoute(getRouterPoints((List<Map<String, Object>>) call.arguments), result, RouteResultType.ROUTE);
         break;
       case "estimateMasstransitRoute":
-        estimationRouteChannel = result;
-        requestMasstransitRoute(call);
+        requestMasstransitRoute(
+          getRouterPoints((List<Map<String, Object>>) call.arguments),
+          result,
+          RouteResultType.ESTIMATION_TEXT
+        );
         break;
       case "estimatePedestrianRoute":
-        estimationRouteChannel = result;
-        requestPedestrianRoute(call);
+        requestPedestrianRoute(
+          getRouterPoints((List<Map<String, Object>>) call.arguments),
+          result,
+          RouteResultType.ESTIMATION_TEXT
+        );
         break;
       case "estimateBicycleRoute":
-        estimationRouteChannel = result;
-        requestBicycleRoute(call);
+        requestBicycleRoute(
+          getRouterPoints((List<Map<String, Object>>) call.arguments),
+          result,
+          RouteResultType.ESTIMATION_TEXT
+        );
         break;
       case "estimateDrivingRoute":
-        estimationRouteChannel = result;
-        requestDrivingRoute(call);
+        requestDrivingRoute(
+          getRouterPoints((List<Map<String, Object>>) call.arguments),
+          result,
+          RouteResultType.ESTIMATION_TEXT
+        );
+        break;
+      case "estimateAllModes":
+        core.estimateAllModes((Map<String, Object>) call.arguments, new CoreResult(result));
+        break;
+      case "estimateRouteBatch":
+        core.estimateRouteBatch((Map<String, Object>) call.arguments);
+        result.success(null);
+        break;
+      case "cancelRouteEstimationBatch":
+        core.cancelRouteEstimationBatch(((Number) ((Map<String, Object>) call.arguments).get("batchId")).intValue());
+        result.success(null);
         break;
       case "clearRoutes":
         clearRoute();
         result.success(null);
         break;
       case "search":
-        searchChannel = result;
-        search(call);
+        search(call, result);
+        break;
+      case "searchPaged":
+        core.searchPaged((Map<String, Object>) call.arguments, new CoreResult(result));
+        break;
+      case "fetchNextSearchPage":
+        core.fetchNextSearchPage(
+          ((Number) ((Map<String, Object>) call.arguments).get("searchId")).intValue(),
+          new CoreResult(result)
+        );
+        break;
+      case "closePagedSearch":
+        core.closePagedSearch(((Number) ((Map<String, Object>) call.arguments).get("searchId")).intValue());
+        result.success(null);
+        break;
+      case "searchAsYouType":
+        searchAsYouType(call, result);
+        break;
+      case "configureSearchCache":
+        configureResponseCache(services.searchCache, call);
+        result.success(null);
+        break;
+      case "getSearchCacheStats":
+        result.success(services.searchCache.getStats());
+        break;
+      case "clearSearchCache":
+        services.searchCache.clear();
+        result.success(null);
         break;
       case "distance":
         double distance = getDistance(call);
         result.success(distance);
         break;
+      case "distanceMatrix":
+        distanceMatrix(call, result);
+        break;
       case "clearAll":
         clearAll();
         result.success(null);
@@ -793,152 +1514,109 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     }
   }
 
-  @Override
-  public void onMasstransitRoutes(@NonNull List<Route> routes) {
-    masstransitSectionInfoList.clear();
-    masstransitRoutePointsList.clear();
+  private void onMasstransitRoutes(RouteRequest request, List<Route> routes) {
+    if (request.resultType != RouteResultType.ROUTE) {
+      request.estimated(routes.size() > 0 ? serializeMasstransitWeight(routes.get(0).getMetadata().getWeight()) : null);
+      return;
+    }
+
+    // Routes of other build requests which finished in the meantime are replaced
+    clearRoute();
+
+    List<SectionInfo> sectionInfoList = new ArrayList<>();
 
     // In this example we consider first alternative only
     if (routes.size() > 0) {
-      if (estimationRouteChannel != null) {
-        final String estimation = routes.get(0).getMetadata().getWeight().getTime().getText();
-        estimationRouteChannel.success(estimation);
-        return;
-      } else {
-        for (Section section : routes.get(0).getSections()) {
-          drawSection(
-            section,
-            SubpolylineHelper.subpolyline(routes.get(0).getGeometry(), section.getGeometry())
-          );
-        }
+      for (Section section : routes.get(0).getSections()) {
+        drawSection(
+          section,
+          SubpolylineHelper.subpolyline(routes.get(0).getGeometry(), section.getGeometry()),
+          sectionInfoList
+        );
       }
     }
 
-    masstransitSectionInfoList = mergeSectionInfoList(masstransitSectionInfoList);
-    masstransitRoutePointsList = createRoutePoints(masstransitSectionInfoList);
+    sectionInfoList = RouteSections.mergeSectionInfoList(sectionInfoList);
+    final List<RoutePoint> routePointsList = RouteSections.createRoutePoints(sectionInfoList);
 
-    if (buildRouteChannel != null) {
-      final Map<String, Object> result = new HashMap<>();
-      final List<Map<String, Object>> sections = new ArrayList<>();
-      final List<Map<String, Object>> points = new ArrayList<>();
+    final Map<String, Object> result = new HashMap<>();
+    final List<Map<String, Object>> sections = new ArrayList<>();
+    final List<Map<String, Object>> points = new ArrayList<>();
 
-      for (SectionInfo section : masstransitSectionInfoList) {
-        sections.add(section.serialize());
-      }
+    for (SectionInfo section : sectionInfoList) {
+      sections.add(section.serialize());
+    }
 
-      for (RoutePoint point : masstransitRoutePointsList) {
-        points.add(point.serialize());
-      }
+    for (RoutePoint point : routePointsList) {
+      points.add(point.serialize());
+    }
 
-      result.put("sections", sections);
-      result.put("points", points);
+    result.put("sections", sections);
+    result.put("points", points);
 
-      buildRouteChannel.success(result);
-    }
+    request.result.success(result);
   }
 
-  private List<RoutePoint> createRoutePoints(List<SectionInfo> sections) {
-    final List<RoutePoint> points = new ArrayList<>();
-
-    if (sections.isEmpty()) {
-      return points;
+  private void onBicycleRoutes(RouteRequest request, List<com.yandex.mapkit.transport.bicycle.Route> routes) {
+    if (request.resultType != RouteResultType.ROUTE) {
+      request.estimated(routes.size() > 0 ? serializeBicycleWeight(routes.get(0).getWeight()) : null);
+      return;
     }
 
-    // Add bound point
-    points.add(sections.get(0).points.startPoint);
-    SectionInfo nextSection;
-
-    for (int i = 0; i < sections.size() - 1; i += 1) {
-      final SectionInfo section = sections.get(i);
-      nextSection = sections.get(i + 1);
-
-      final RoutePoint p1 = section.points.endPoint;
-      final RoutePoint p2 = nextSection.points.startPoint;
+    clearRoute();
 
-      points.add(maxPoint(p1, p2));
+    if (routes.size() > 0) {
+      for (com.yandex.mapkit.transport.bicycle.Section section : routes.get(0).getSections()) {
+        drawBicycleSection(
+          section,
+          SubpolylineHelper.subpolyline(
+            routes.get(0).getGeometry(), section.getGeometry()));
+      }
     }
 
-    // Add bound point
-    points.add(sections.get(sections.size() - 1).points.endPoint);
-    return points;
+    request.result.success(null);
   }
 
-  private List<SectionInfo> mergeSectionInfoList(List<SectionInfo> sections) {
-    final List<SectionInfo> optimizedSections = new ArrayList<>();
-    SectionInfo prevSection = null;
-
-    for (final SectionInfo section : sections) {
-      if (prevSection != null) {
-        if (prevSection.tag.equals("pedestrian") && section.tag.equals("pedestrian")) {
-          prevSection = new SectionInfo(
-            /* tag */ prevSection.tag,
-            /* duration */ prevSection.duration + section.duration,
-            /* walkingDistance */ prevSection.walkingDistance + section.walkingDistance,
-            /* color */ prevSection.color,
-            /* points */ mergePoints(prevSection.points, section.points)
-          );
-        } else {
-          optimizedSections.add(prevSection);
-          prevSection = section;
-        }
-      } else {
-        prevSection = section;
-      }
-    }
+  private static Map<String, Object> serializeMasstransitWeight(
+    com.yandex.mapkit.transport.masstransit.Weight weight
+  ) {
+    final Map<String, Object> estimation = new HashMap<>();
 
-    if (prevSection != null) {
-      optimizedSections.add(prevSection);
-    }
+    estimation.put("timeText", weight.getTime().getText());
+    estimation.put("time", weight.getTime().getValue());
+    estimation.put("distance", null);
+    estimation.put("walkingDistance", weight.getWalkingDistance().getValue());
 
-    return optimizedSections;
+    return estimation;
   }
 
-  private PointBound mergePoints(PointBound b1, PointBound b2) {
-    return new PointBound(
-      /* startPoint */ maxPoint(b1.startPoint, b2.startPoint),
-      /* endPoint */ maxPoint(b1.endPoint, b2.endPoint)
-    );
-  }
+  private static Map<String, Object> serializeBicycleWeight(com.yandex.mapkit.transport.bicycle.Weight weight) {
+    final Map<String, Object> estimation = new HashMap<>();
 
-  private RoutePoint maxPoint(RoutePoint p1, RoutePoint p2) {
-    return p1.zIndex > p2.zIndex ? p1 : p2;
-  }
+    estimation.put("timeText", weight.getTime().getText());
+    estimation.put("time", weight.getTime().getValue());
+    estimation.put("distance", weight.getDistance().getValue());
+    estimation.put("walkingDistance", null);
 
-  @Override
-  public void onMasstransitRoutesError(@NonNull Error error) {
-    Log.e("MasstransitRoutesError", "Error" + error);
-    if (buildRouteChannel != null) {
-      buildRouteChannel.error("MasstransitRoutesError", error.toString(), error);
-    }
+    return estimation;
   }
 
-  @Override
-  public void onBicycleRoutes(@NonNull List<com.yandex.mapkit.transport.bicycle.Route> routes) {
-    if (routes.size() > 0) {
-      if (estimationRouteChannel != null) {
-        final String estimation = routes.get(0).getWeight().getTime().getText();
-        estimationRouteChannel.success(estimation);
-      } else {
-        for (com.yandex.mapkit.transport.bicycle.Section section : routes.get(0).getSections()) {
-          drawBicycleSection(
-            section,
-            SubpolylineHelper.subpolyline(
-              routes.get(0).getGeometry(), section.getGeometry()));
-        }
-      }
-    }
+  private static Map<String, Object> serializeDrivingWeight(
+    com.yandex.mapkit.directions.driving.Weight weight
+  ) {
+    final Map<String, Object> estimation = new HashMap<>();
 
-    if (buildRouteChannel != null) {
-      buildRouteChannel.success(null);
-    }
+    estimation.put("timeText", weight.getTime().getText());
+    estimation.put("time", weight.getTime().getValue());
+    estimation.put("distance", weight.getDistance().getValue());
+    estimation.put("walkingDistance", null);
+
+    return estimation;
   }
 
-  @Override
-  public void onBicycleRoutesError(@NonNull Error error) {
-    Log.e("BicycleRoutesError", "Error" + error);
-    if (buildRouteChannel != null) {
-      buildRouteChannel.error("BicycleRoutesError", error.toString(), error);
-    }
+  private void onRoutesError(RouteRequest request, String errorCode, Error error) {
+    Log.e(errorCode, "Error" + error);
+    request.result.error(errorCode, error.toString(), error);
   }
 
   private void drawBicycleSection(
@@ -947,22 +1625,18 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
   ) {
     // Draw a section polyline on a map
     // Set its color depending on the information which the section contains
-    MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-    PolylineMapObject polylineMapObject = mapObjects.addPolyline(geometry);
+    PolylineMapObject polylineMapObject = addRoutePolyline(geometry);
     polylineMapObject.setStrokeColor(0xFFA06ED9);
-    routePolylines.add(polylineMapObject);
   }
 
-  private void drawSection(Section section, Polyline geometry) {
+  private void drawSection(Section section, Polyline geometry, List<SectionInfo> sectionInfoList) {
     // Draw a section polyline on a map
     // Set its color depending on the information which the section contains
-    MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-    PolylineMapObject polylineMapObject = mapObjects.addPolyline(geometry);
+    PolylineMapObject polylineMapObject = addRoutePolyline(geometry);
     final SectionInfo info = getMasstransitSectionInfo(section);
 
     polylineMapObject.setStrokeColor(info.color);
-    masstransitSectionInfoList.add(info);
-    routePolylines.add(polylineMapObject);
+    sectionInfoList.add(info);
   }
 
   private SectionInfo getMasstransitSectionInfo(Section section) {
@@ -1118,8 +1792,18 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     return null;
   }
 
-  @Override
-  public void onSearchResponse(@NonNull Response response) {
+  private void onSearchResponse(SearchRequest request, Response response) {
+    final List<Map<String, Object>> results = serializeSearchResults(response);
+
+    // Empty results are not cached as they may be temporary, like empty routes
+    if (!results.isEmpty()) {
+      services.searchCache.put(request.cacheKey, results);
+    }
+
+    request.result.success(results);
+  }
+
+  private static List<Map<String, Object>> serializeSearchResults(Response response) {
     final List<Map<String, Object>> results = new ArrayList<>();
 
     for (GeoObjectCollection.Item searchResult : response.getCollection().getChildren()) {
@@ -1148,46 +1832,25 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
       results.add(arguments);
     }
 
-    if (searchChannel != null) {
-      searchChannel.success(results);
-    }
+    return results;
   }
 
-  @Override
-  public void onSearchError(@NonNull Error error) {
-    Log.e("SearchError", "Error" + error);
-    if (searchChannel != null) {
-      searchChannel.error("SearchError", error.toString(), error);
+  private void onDrivingRoutes(RouteRequest request, List<DrivingRoute> routes) {
+    if (request.resultType != RouteResultType.ROUTE) {
+      request.estimated(routes.size() > 0 ? serializeDrivingWeight(routes.get(0).getMetadata().getWeight()) : null);
+      return;
     }
-  }
 
-  @Override
-  public void onDrivingRoutes(@NonNull List<DrivingRoute> routes) {
-    if (routes.size() > 0) {
-      if (estimationRouteChannel != null) {
-        final String estimation = routes.get(0).getMetadata().getWeight().getTime().getText();
-        estimationRouteChannel.success(estimation);
-      } else {
-        final DrivingRoute route = routes.get(0);
+    clearRoute();
 
-        MapObjectCollection mapObjects = mapView.getMap().getMapObjects();
-        PolylineMapObject polylineMapObject = mapObjects.addPolyline(route.getGeometry());
-        polylineMapObject.setStrokeColor(0xFFA06ED9);
-        routePolylines.add(polylineMapObject);
-      }
-    }
+    if (routes.size() > 0) {
+      final DrivingRoute route = routes.get(0);
 
-    if (buildRouteChannel != null) {
-      buildRouteChannel.success(null);
+      PolylineMapObject polylineMapObject = addRoutePolyline(route.getGeometry());
+      polylineMapObject.setStrokeColor(0xFFA06ED9);
     }
-  }
 
-  @Override
-  public void onDrivingRoutesError(@NonNull Error error) {
-    Log.e("DrivingRoutesError", "Error" + error);
-    if (searchChannel != null) {
-      searchChannel.error("DrivingRoutesError", error.toString(), error);
-    }
+    request.result.success(null);
   }
 
   private class YandexUserLocationObjectListener implements UserLocationObjectListener {
@@ -1198,12 +1861,12 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     }
 
     public void onObjectAdded(UserLocationView userLocationView) {
-      final ImageProvider arrowIconProvider = ImageProvider.fromAsset(
+      final ImageProvider arrowIconProvider = services.iconCache.fromAsset(
         mapView.getContext(),
         pluginRegistrar.lookupKeyForAsset(userLocationArrowIconName)
       );
 
-      final ImageProvider pinIconProvider = ImageProvider.fromAsset(
+      final ImageProvider pinIconProvider = services.iconCache.fromAsset(
         mapView.getContext(),
         pluginRegistrar.lookupKeyForAsset(userLocationPinIconName)
       );
@@ -1220,16 +1883,640 @@ public class YandexMapController implements PlatformView, MethodChannel.MethodCa
     }
   }
 
-  private class YandexMapObjectTapListener implements MapObjectTapListener {
-    public boolean onMapObjectTap(MapObject mapObject, Point point) {
-      Map<String, Object> arguments = new HashMap<>();
-      arguments.put("hashCode", mapObject.getUserData());
-      arguments.put("latitude", point.getLatitude());
-      arguments.put("longitude", point.getLongitude());
+  private class YandexCameraListener implements CameraListener {
+    @Override
+    public void onCameraPositionChanged(
+      @NonNull com.yandex.mapkit.map.Map map,
+      @NonNull CameraPosition cameraPosition,
+      @NonNull CameraUpdateSource cameraUpdateSource,
+      boolean finished
+    ) {
+      updateSimplificationLevel(cameraPosition.getZoom());
+      placemarkClusterer.onZoomChanged(cameraPosition.getZoom());
+      updateVirtualPlacemarks(map.getVisibleRegion());
 
-      methodChannel.invokeMethod("onMapObjectTap", arguments);
+      if (cameraEvents != null) {
+        cameraEvents.onCameraPositionChanged(cameraPosition, finished);
+      }
 
-      return true;
+      if (viewportDiff != null && finished) {
+        updateViewport(map.getVisibleRegion());
+      }
+    }
+  }
+
+  /**
+   * Throttles `onCameraPositionChanged` events sent to Dart.
+   *
+   * Positions arriving sooner than `minInterval` after the last sent one are coalesced
+   * and only the latest of them is sent when the interval passes.
+   * Positions of finished moves are always sent right away.
+   */
+  private class CameraEvents implements Runnable {
+    final long minInterval;
+    final boolean onlyFinished;
+    long lastSentAt;
+    CameraPosition pendingPosition;
+    boolean scheduled = false;
+
+    CameraEvents(long minInterval, boolean onlyFinished) {
+      this.minInterval = minInterval;
+      this.onlyFinished = onlyFinished;
+      this.lastSentAt = SystemClock.uptimeMillis() - minInterval;
+    }
+
+    void onCameraPositionChanged(CameraPosition cameraPosition, boolean finished) {
+      if (finished) {
+        cancel();
+        send(cameraPosition, true);
+        return;
+      }
+
+      if (onlyFinished) {
+        return;
+      }
+
+      pendingPosition = cameraPosition;
+
+      if (scheduled) {
+        return;
+      }
+
+      long delay = lastSentAt + minInterval - SystemClock.uptimeMillis();
+
+      if (delay <= 0) {
+        run();
+      } else {
+        scheduled = true;
+        mainHandler.postDelayed(this, delay);
+      }
+    }
+
+    @Override
+    public void run() {
+      CameraPosition cameraPosition = pendingPosition;
+
+      scheduled = false;
+      pendingPosition = null;
+      send(cameraPosition, false);
+    }
+
+    void cancel() {
+      if (scheduled) {
+        mainHandler.removeCallbacks(this);
+        scheduled = false;
+      }
+
+      pendingPosition = null;
+    }
+
+    private void send(CameraPosition cameraPosition, boolean finished) {
+      lastSentAt = SystemClock.uptimeMillis();
+      methodChannel.invokeMethod("onCameraPositionChanged", serializeCameraPosition(cameraPosition, finished));
+    }
+  }
+
+  private class YandexMapObjectTapListener implements MapObjectTapListener {
+    public boolean onMapObjectTap(MapObject mapObject, Point point) {
+      Map<String, Object> arguments = new HashMap<>();
+      arguments.put("hashCode", mapObject.getUserData());
+      arguments.put("latitude", point.getLatitude());
+      arguments.put("longitude", point.getLongitude());
+
+      methodChannel.invokeMethod("onMapObjectTap", arguments);
+
+      return true;
+    }
+  }
+
+  /** Draws sealed chunks of a live track as polylines styled like the track, the track polyline is its tail */
+  private class PolylineChunks implements PolylineTrack.Listener<Point> {
+    private final PolylineMapObject polyline;
+    private final ArrayDeque<PolylineMapObject> chunks = new ArrayDeque<>();
+
+    PolylineChunks(PolylineMapObject polyline) {
+      this.polyline = polyline;
+    }
+
+    @Override
+    public void onChunkSealed(List<Point> points) {
+      PolylineMapObject chunk = mapView.getMap().getMapObjects().addPolyline(new Polyline(points));
+
+      chunk.setUserData(polyline.getUserData());
+      chunk.setOutlineColor(polyline.getOutlineColor());
+      chunk.setOutlineWidth(polyline.getOutlineWidth());
+      chunk.setStrokeColor(polyline.getStrokeColor());
+      chunk.setStrokeWidth(polyline.getStrokeWidth());
+      chunk.setGeodesic(polyline.isGeodesic());
+      chunk.setDashLength(polyline.getDashLength());
+      chunk.setDashOffset(polyline.getDashOffset());
+      chunk.setGapLength(polyline.getGapLength());
+      chunks.addLast(chunk);
+    }
+
+    @Override
+    public void onOldestChunkTrimmed(List<Point> points) {
+      chunks.getFirst().setGeometry(new Polyline(points));
+    }
+
+    @Override
+    public void onOldestChunkDropped() {
+      mapView.getMap().getMapObjects().remove(chunks.removeFirst());
+    }
+
+    @Override
+    public void onTailChanged(List<Point> points) {
+      polyline.setGeometry(new Polyline(points));
+    }
+  }
+
+  private class YandexPlacemarkMaterializer implements VirtualPlacemarkLayer.Materializer {
+    public void materialize(Map<String, Object> params) {
+      addPlacemarkToMap(params);
+    }
+
+    public void dematerialize(int key) {
+      removePlacemarkFromMap(key);
+    }
+
+    public void movePlacemark(int key, double latitude, double longitude) {
+      updatePlacemarkPointOnMap(key, latitude, longitude);
+    }
+  }
+
+  private class YandexClusterTapListener implements PlacemarkClusterer.ClusterTapListener {
+    public void onClusterTap(List<Object> hashCodes, Point point) {
+      Map<String, Object> arguments = new HashMap<>();
+      arguments.put("hashCode", null);
+      arguments.put("clusterHashCodes", hashCodes);
+      arguments.put("latitude", point.getLatitude());
+      arguments.put("longitude", point.getLongitude());
+
+      methodChannel.invokeMethod("onMapObjectTap", arguments);
+    }
+  }
+
+  enum RouteResultType {
+    /** Draws the route and answers with its description */
+    ROUTE,
+    /** Answers with the localized travel time only */
+    ESTIMATION_TEXT,
+    /** Answers with travel time and distance values */
+    ESTIMATION
+  }
+
+  /**
+   * One in-flight route request with its own result.
+   *
+   * Fresh responses are cached under the key of the request they answer.
+   */
+  private abstract class RouteRequest {
+    final int id = ++requestIdCounter;
+    final long submittedAt = System.nanoTime();
+    final String sessionName;
+    final String cacheKey;
+    final MethodChannel.Result result;
+    final RouteResultType resultType;
+
+    RouteRequest(String sessionName, String cacheKey, MethodChannel.Result result, RouteResultType resultType) {
+      this.sessionName = sessionName;
+      this.cacheKey = cacheKey;
+      this.result = result;
+      this.resultType = resultType;
+    }
+
+    abstract void cancel();
+
+    /** `estimation` is `null` if the router found no routes */
+    void estimated(Map<String, Object> estimation) {
+      if (resultType == RouteResultType.ESTIMATION_TEXT) {
+        result.success(estimation != null ? estimation.get("timeText") : null);
+      } else {
+        result.success(estimation);
+      }
+    }
+
+    // Empty responses are not cached as they may be temporary
+    void finish(List<?> routes) {
+      routeRequests.remove(id);
+      metrics.recordSession(sessionName, System.nanoTime() - submittedAt);
+
+      if (routes != null && !routes.isEmpty()) {
+        services.routeCache.put(cacheKey, routes);
+      }
+    }
+  }
+
+  /** Masstransit and pedestrian routers share the same session type */
+  private class MasstransitRouteRequest extends RouteRequest implements RouteListener {
+    com.yandex.mapkit.transport.masstransit.Session session;
+
+    MasstransitRouteRequest(
+      String sessionName,
+      String cacheKey,
+      MethodChannel.Result result,
+      RouteResultType resultType
+    ) {
+      super(sessionName, cacheKey, result, resultType);
+    }
+
+    @Override
+    void cancel() {
+      if (session != null) {
+        session.cancel();
+      }
+    }
+
+    @Override
+    public void onMasstransitRoutes(@NonNull List<Route> routes) {
+      finish(routes);
+      YandexMapController.this.onMasstransitRoutes(this, routes);
+    }
+
+    @Override
+    public void onMasstransitRoutesError(@NonNull Error error) {
+      finish(null);
+      onRoutesError(this, "MasstransitRoutesError", error);
+    }
+  }
+
+  private class BicycleRouteRequest extends RouteRequest
+    implements com.yandex.mapkit.transport.bicycle.Session.RouteListener
+  {
+    com.yandex.mapkit.transport.bicycle.Session session;
+
+    BicycleRouteRequest(String cacheKey, MethodChannel.Result result, RouteResultType resultType) {
+      super("bicycleRoute", cacheKey, result, resultType);
+    }
+
+    @Override
+    void cancel() {
+      if (session != null) {
+        session.cancel();
+      }
+    }
+
+    @Override
+    public void onBicycleRoutes(@NonNull List<com.yandex.mapkit.transport.bicycle.Route> routes) {
+      finish(routes);
+      YandexMapController.this.onBicycleRoutes(this, routes);
+    }
+
+    @Override
+    public void onBicycleRoutesError(@NonNull Error error) {
+      finish(null);
+      onRoutesError(this, "BicycleRoutesError", error);
+    }
+  }
+
+  private class DrivingRouteRequest extends RouteRequest implements DrivingSession.DrivingRouteListener {
+    DrivingSession session;
+
+    DrivingRouteRequest(String cacheKey, MethodChannel.Result result, RouteResultType resultType) {
+      super("drivingRoute", cacheKey, result, resultType);
+    }
+
+    @Override
+    void cancel() {
+      if (session != null) {
+        session.cancel();
+      }
+    }
+
+    @Override
+    public void onDrivingRoutes(@NonNull List<DrivingRoute> routes) {
+      finish(routes);
+      YandexMapController.this.onDrivingRoutes(this, routes);
+    }
+
+    @Override
+    public void onDrivingRoutesError(@NonNull Error error) {
+      finish(null);
+      onRoutesError(this, "DrivingRoutesError", error);
+    }
+  }
+
+  /** Search waiting for the debounce delay to pass */
+  private class TypedSearch implements Runnable {
+    final String query;
+    final Map<String, Object> params;
+    final VisibleRegion visibleRegion;
+    final String cacheKey;
+    final MethodChannel.Result result;
+
+    TypedSearch(
+      String query,
+      Map<String, Object> params,
+      VisibleRegion visibleRegion,
+      String cacheKey,
+      MethodChannel.Result result
+    ) {
+      this.query = query;
+      this.params = params;
+      this.visibleRegion = visibleRegion;
+      this.cacheKey = cacheKey;
+      this.result = result;
+    }
+
+    @Override
+    public void run() {
+      pendingTypedSearch = null;
+      typedSearchRequest = submitSearch(query, params, visibleRegion, cacheKey, result);
+    }
+  }
+
+  private class SearchRequest implements SearchListener {
+    final int id = ++requestIdCounter;
+    final long submittedAt = System.nanoTime();
+    final String cacheKey;
+    final MethodChannel.Result result;
+    Session session;
+
+    SearchRequest(String cacheKey, MethodChannel.Result result) {
+      this.cacheKey = cacheKey;
+      this.result = result;
+    }
+
+    void cancel() {
+      if (session != null) {
+        session.cancel();
+      }
+    }
+
+    @Override
+    public void onSearchResponse(@NonNull Response response) {
+      searchRequests.remove(id);
+      metrics.recordSession("search", System.nanoTime() - submittedAt);
+      YandexMapController.this.onSearchResponse(this, response);
+    }
+
+    @Override
+    public void onSearchError(@NonNull Error error) {
+      searchRequests.remove(id);
+      metrics.recordSession("search", System.nanoTime() - submittedAt);
+      Log.e("SearchError", "Error" + error);
+      result.error("SearchError", error.toString(), error);
+    }
+  }
+
+  /** Draws objects of `MapCore` with map objects, virtualized placemarks are materialized only when visible */
+  private class YandexMapBackend implements MapBackend {
+    @Override
+    public void addPlacemark(int key, double latitude, double longitude, Map<String, Object> params) {
+      if (virtualPlacemarkLayer == null) {
+        addPlacemarkToMap(params);
+        return;
+      }
+
+      if (!virtualPlacemarkLayer.contains(key)) {
+        removePlacemarkFromMap(key);
+      }
+
+      virtualPlacemarkLayer.add(key, params);
+    }
+
+    @Override
+    public void movePlacemark(int key, double latitude, double longitude) {
+      if (virtualPlacemarkLayer != null && virtualPlacemarkLayer.contains(key)) {
+        virtualPlacemarkLayer.move(key, latitude, longitude);
+      } else {
+        updatePlacemarkPointOnMap(key, latitude, longitude);
+      }
+    }
+
+    @Override
+    public void removePlacemark(int key) {
+      if (virtualPlacemarkLayer != null && virtualPlacemarkLayer.contains(key)) {
+        virtualPlacemarkLayer.remove(key);
+      } else {
+        removePlacemarkFromMap(key);
+      }
+    }
+
+    @Override
+    public void addPolyline(int key, double[] coordinates, Map<String, Object> params) {
+      addPolylineToMap(key, coordinates, params);
+    }
+
+    @Override
+    public void appendPolylinePoints(int key, double[] coordinates, Integer maxLength) {
+      appendPolylinePointsOnMap(key, coordinates, maxLength);
+    }
+
+    @Override
+    public void removePolyline(int key) {
+      removePolylineFromMap(key);
+    }
+
+    @Override
+    public void flush() {
+      placemarkClusterer.flush();
+    }
+
+    @Override
+    public void clear() {
+      mapView.getMap().getMapObjects().clear();
+      placemarks.clear();
+      placemarkClusterer.reset();
+
+      if (virtualPlacemarkLayer != null) {
+        virtualPlacemarkLayer.clear();
+      }
+
+      polylines.clear();
+      polylineTracks.clear();
+      simplifiedPolylines.clear();
+    }
+  }
+
+  /** Estimates with MapKit routers, sharing the route cache and metrics with other route requests */
+  private class YandexRouterBackend implements RouterBackend {
+    @Override
+    public Request estimate(String mode, double[] waypoints, final Listener listener) {
+      final RouteRequest request = requestRoute(
+        mode,
+        getRouterPoints(waypoints),
+        new MethodChannel.Result() {
+          @Override
+          @SuppressWarnings("unchecked")
+          public void success(Object estimation) {
+            listener.onEstimation((Map<String, Object>) estimation);
+          }
+
+          @Override
+          public void error(String errorCode, String errorMessage, Object errorDetails) {
+            listener.onError(errorMessage != null ? errorMessage : errorCode);
+          }
+
+          @Override
+          public void notImplemented() {}
+        },
+        RouteResultType.ESTIMATION
+      );
+
+      return new Request() {
+        @Override
+        public void cancel() {
+          if (routeRequests.remove(request.id) != null) {
+            request.cancel();
+          }
+        }
+      };
+    }
+  }
+
+  /** Searches in the current visible region with the search manager of the map */
+  private class YandexSearchBackend implements SearchBackend {
+    @Override
+    public Session submit(String query, Map<String, Object> params, Listener listener) {
+      final YandexSearchSession session = new YandexSearchSession(listener);
+
+      session.session = services.getSearchManager().submit(
+        query,
+        VisibleRegionUtils.toPolygon(mapView.getMap().getVisibleRegion()),
+        getSearchOptions(params),
+        session
+      );
+
+      return session;
+    }
+  }
+
+  /** Keeps the listener of the requested page as MapKit holds search listeners weakly */
+  private class YandexSearchSession implements SearchBackend.Session, SearchListener {
+    com.yandex.mapkit.search.Session session;
+    SearchBackend.Listener listener;
+    long pageRequestedAt = System.nanoTime();
+
+    YandexSearchSession(SearchBackend.Listener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public boolean hasNextPage() {
+      return session.hasNextPage();
+    }
+
+    @Override
+    public void fetchNextPage(SearchBackend.Listener listener) {
+      this.listener = listener;
+      pageRequestedAt = System.nanoTime();
+      session.fetchNextPage(this);
+    }
+
+    @Override
+    public void cancel() {
+      session.cancel();
+      listener = null;
+    }
+
+    @Override
+    public void onSearchResponse(@NonNull Response response) {
+      if (listener == null) {
+        return;
+      }
+
+      metrics.recordSession("searchPage", System.nanoTime() - pageRequestedAt);
+      listener.onResponse(serializeSearchResults(response));
+    }
+
+    @Override
+    public void onSearchError(@NonNull Error error) {
+      if (listener == null) {
+        return;
+      }
+
+      Log.e("SearchError", "Error" + error);
+      metrics.recordSession("searchPage", System.nanoTime() - pageRequestedAt);
+      listener.onError(error.toString());
+    }
+  }
+
+  private class HandlerScheduler implements Scheduler {
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+      mainHandler.postDelayed(task, delayMillis);
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+      mainHandler.removeCallbacks(task);
+    }
+  }
+
+  private class ChannelEventSink implements MapCore.EventSink {
+    @Override
+    public void send(String event, Map<String, Object> arguments) {
+      methodChannel.invokeMethod(event, arguments);
+    }
+  }
+
+  private static class CoreResult implements MapCore.Result {
+    final MethodChannel.Result result;
+
+    CoreResult(MethodChannel.Result result) {
+      this.result = result;
+    }
+
+    @Override
+    public void success(Object value) {
+      result.success(value);
+    }
+
+    @Override
+    public void error(String errorCode, String errorMessage) {
+      result.error(errorCode, errorMessage, null);
+    }
+  }
+
+  /** Records the time and size of the answer to a method call */
+  private class MeteredResult implements MethodChannel.Result {
+    final String method;
+    final long calledAt;
+    final MethodChannel.Result result;
+
+    MeteredResult(String method, long calledAt, MethodChannel.Result result) {
+      this.method = method;
+      this.calledAt = calledAt;
+      this.result = result;
+    }
+
+    @Override
+    public void success(Object value) {
+      metrics.recordResult(method, System.nanoTime() - calledAt, value, false);
+      result.success(value);
+    }
+
+    @Override
+    public void error(String errorCode, String errorMessage, Object errorDetails) {
+      metrics.recordResult(method, System.nanoTime() - calledAt, null, true);
+      result.error(errorCode, errorMessage, errorDetails);
+    }
+
+    @Override
+    public void notImplemented() {
+      metrics.recordResult(method, System.nanoTime() - calledAt, null, true);
+      result.notImplemented();
+    }
+  }
+
+  private class MetricsLog implements Runnable {
+    final long interval;
+
+    MetricsLog(long interval) {
+      this.interval = interval;
+    }
+
+    @Override
+    public void run() {
+      Log.i("YandexMapkitMetrics", metrics.dump());
+      mainHandler.postDelayed(this, interval);
+    }
+  }
+
+  private static class GeoMetric implements PointGridIndex.Metric {
+    public double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+      return Geo.distance(new Point(latitude1, longitude1), new Point(latitude2, longitude2));
     }
   }
 
@@ -2,6 +2,8 @@ package com.unact.yandexmapkit;
 
 import android.content.Context;
 
+import java.util.Map;
+
 import static io.flutter.plugin.common.PluginRegistry.Registrar;
 import io.flutter.plugin.common.StandardMessageCodec;
 import io.flutter.plugin.platform.PlatformView;
@@ -9,14 +11,17 @@ import io.flutter.plugin.platform.PlatformViewFactory;
 
 public class YandexMapFactory extends PlatformViewFactory {
   private final Registrar pluginRegistrar;
+  private final MapServices services;
 
-  public YandexMapFactory(Registrar registrar) {
+  YandexMapFactory(Registrar registrar, MapServices services) {
     super(StandardMessageCodec.INSTANCE);
     pluginRegistrar = registrar;
+    this.services = services;
   }
 
   @Override
-  public PlatformView create(Context context, int id, Object o) {
-    return new YandexMapController(id, context, pluginRegistrar);
+  @SuppressWarnings("unchecked")
+  public PlatformView create(Context context, int id, Object args) {
+    return new YandexMapController(id, context, pluginRegistrar, services, (Map<String, Object>) args);
   }
 }
@@ -1,6 +1,7 @@
 package com.unact.yandexmapkit;
 
 import android.app.Activity;
+import android.content.Context;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
@@ -11,12 +12,22 @@ import io.flutter.plugin.common.PluginRegistry.Registrar;
 import com.yandex.mapkit.MapKitFactory;
 
 public class YandexMapkitPlugin {
+  // MapKit is a process-wide singleton, so map views of every registration share its services
+  private static MapServices services;
 
   public static void registerWith(Registrar registrar) {
     registrar.platformViewRegistry().registerViewFactory(
       "yandex_mapkit/yandex_map",
-       new YandexMapFactory(registrar)
+       new YandexMapFactory(registrar, getServices(registrar.context()))
     );
   }
 
+  private static synchronized MapServices getServices(Context context) {
+    if (services == null) {
+      services = new MapServices(context.getApplicationContext());
+    }
+
+    return services;
+  }
+
 }
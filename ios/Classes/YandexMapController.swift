@@ -286,6 +286,18 @@ public class YandexMapController: NSObject, FlutterPlatformView {
     case "removePlacemark":
       removePlacemark(call)
       result(nil)
+    case "addPlacemarks":
+      addPlacemarks(call)
+      result(nil)
+    case "removePlacemarks":
+      removePlacemarks(call)
+      result(nil)
+    case "updatePlacemarkPoint":
+      updatePlacemarkPoint(call)
+      result(nil)
+    case "updatePlacemarkPoints":
+      updatePlacemarkPoints(call)
+      result(nil)
     case "addPolyline":
       addPolyline(call)
       result(nil)
@@ -650,8 +662,34 @@ public class YandexMapController: NSObject, FlutterPlatformView {
 
   public func removePlacemark(_ call: FlutterMethodCall) {
     let params = call.arguments as! [String: Any]
+    removePlacemarkFromMap(params["hashCode"] as! Int)
+  }
+
+  public func addPlacemarks(_ call: FlutterMethodCall) {
+    for params in call.arguments as! [[String: Any]] {
+      addPlacemarkToMap(params)
+    }
+  }
+
+  public func removePlacemarks(_ call: FlutterMethodCall) {
+    for hashCode in call.arguments as! [Int] {
+      removePlacemarkFromMap(hashCode)
+    }
+  }
+
+  public func updatePlacemarkPoint(_ call: FlutterMethodCall) {
+    updatePlacemarkPointOnMap(call.arguments as! [String: Any])
+  }
+
+  public func updatePlacemarkPoints(_ call: FlutterMethodCall) {
+    for params in call.arguments as! [[String: Any]] {
+      updatePlacemarkPointOnMap(params)
+    }
+  }
+
+  private func removePlacemarkFromMap(_ hashCode: Int) {
     let mapObjects = mapView.mapWindow.map.mapObjects
-    let placemark = placemarks.first(where: { $0.userData as! Int == params["hashCode"] as! Int })
+    let placemark = placemarks.first(where: { $0.userData as! Int == hashCode })
 
     if (placemark != nil) {
       mapObjects.remove(with: placemark!)
@@ -659,6 +697,14 @@ public class YandexMapController: NSObject, FlutterPlatformView {
     }
   }
 
+  private func updatePlacemarkPointOnMap(_ params: [String: Any]) {
+    let hashCode = params["hashCode"] as! Int
+
+    if let placemark = placemarks.first(where: { $0.userData as! Int == hashCode }) {
+      placemark.geometry = YMKPoint(latitude: params["latitude"] as! Double, longitude: params["longitude"] as! Double)
+    }
+  }
+
   private func addPlacemarkToMap(_ params: [String: Any]) {
     let point = YMKPoint(latitude: params["latitude"] as! Double, longitude: params["longitude"] as! Double)
     let mapObjects = mapView.mapWindow.map.mapObjects
@@ -0,0 +1,40 @@
+import 'package:flutter/foundation.dart';
+
+import 'point.dart';
+
+class CameraPosition {
+  CameraPosition({
+    @required this.target,
+    @required this.zoom,
+    @required this.tilt,
+    @required this.azimuth,
+    @required this.finished,
+  });
+
+  factory CameraPosition.fromMap(dynamic data) {
+    return CameraPosition(
+      target: Point(
+        latitude: data['target']['latitude'],
+        longitude: data['target']['longitude'],
+      ),
+      zoom: data['zoom'],
+      tilt: data['tilt'],
+      azimuth: data['azimuth'],
+      finished: data['finished'],
+    );
+  }
+
+  final Point target;
+  final double zoom;
+  final double tilt;
+  final double azimuth;
+
+  /// Whether the camera movement that produced this position is over
+  final bool finished;
+
+  @override
+  String toString() {
+    return '$CameraPosition(target: $target, zoom: $zoom, tilt: $tilt, '
+        'azimuth: $azimuth, finished: $finished)';
+  }
+}
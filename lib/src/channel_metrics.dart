@@ -0,0 +1,115 @@
+import 'package:flutter/foundation.dart';
+
+/// Distribution of durations, percentiles are accurate to about 12.5%
+class LatencyStats {
+  LatencyStats({
+    @required this.count,
+    @required this.p50,
+    @required this.p95,
+    @required this.p99,
+    @required this.max,
+  });
+
+  factory LatencyStats.fromMap(dynamic data) {
+    return LatencyStats(
+      count: data['count'],
+      p50: Duration(microseconds: data['p50']),
+      p95: Duration(microseconds: data['p95']),
+      p99: Duration(microseconds: data['p99']),
+      max: Duration(microseconds: data['max']),
+    );
+  }
+
+  final int count;
+  final Duration p50;
+  final Duration p95;
+  final Duration p99;
+  final Duration max;
+
+  @override
+  String toString() {
+    return '$LatencyStats(count: $count, p50: $p50, p95: $p95, p99: $p99, max: $max)';
+  }
+}
+
+class MethodMetrics {
+  MethodMetrics({
+    @required this.latency,
+    @required this.responseLatency,
+    @required this.errorCount,
+    @required this.argumentBytes,
+    @required this.resultBytes,
+  });
+
+  factory MethodMetrics.fromMap(dynamic data) {
+    return MethodMetrics(
+      latency: LatencyStats.fromMap(data['latency']),
+      responseLatency: LatencyStats.fromMap(data['responseLatency']),
+      errorCount: data['errorCount'],
+      argumentBytes: data['argumentBytes'],
+      resultBytes: data['resultBytes'],
+    );
+  }
+
+  /// Time spent by the native handler of the method, its count is the number of calls
+  final LatencyStats latency;
+
+  /// Time from the call until the native side answered it
+  final LatencyStats responseLatency;
+  final int errorCount;
+
+  /// Approximate total size of encoded arguments of all calls,
+  /// counted only while enabled with `YandexMapController.setMetricsPayloadSizes`
+  final int argumentBytes;
+
+  /// Approximate total size of encoded results of all calls,
+  /// counted only while enabled with `YandexMapController.setMetricsPayloadSizes`
+  final int resultBytes;
+
+  @override
+  String toString() {
+    return '$MethodMetrics(latency: $latency, responseLatency: $responseLatency, '
+        'errorCount: $errorCount, argumentBytes: $argumentBytes, resultBytes: $resultBytes)';
+  }
+}
+
+/// Native metrics of the map method channel collected since creation or the last reset
+class ChannelMetrics {
+  ChannelMetrics({
+    @required this.methods,
+    @required this.sessions,
+    @required this.elapsed,
+  });
+
+  factory ChannelMetrics.fromMap(dynamic data) {
+    final Map<String, MethodMetrics> methods = <String, MethodMetrics>{};
+    final Map<String, LatencyStats> sessions = <String, LatencyStats>{};
+
+    data['methods'].forEach((dynamic method, dynamic metrics) {
+      methods[method] = MethodMetrics.fromMap(metrics);
+    });
+    data['sessions'].forEach((dynamic session, dynamic stats) {
+      sessions[session] = LatencyStats.fromMap(stats);
+    });
+
+    return ChannelMetrics(
+      methods: methods,
+      sessions: sessions,
+      elapsed: Duration(microseconds: data['elapsed']),
+    );
+  }
+
+  /// Metrics by method name
+  final Map<String, MethodMetrics> methods;
+
+  /// Time from submitting a router or search request until its response, by request kind
+  final Map<String, LatencyStats> sessions;
+
+  /// Time the metrics were collected for
+  final Duration elapsed;
+
+  @override
+  String toString() {
+    return '$ChannelMetrics(methods: $methods, sessions: $sessions, elapsed: $elapsed)';
+  }
+}
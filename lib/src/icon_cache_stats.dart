@@ -0,0 +1,37 @@
+import 'package:flutter/foundation.dart';
+
+/// State of the native cache of placemark icons
+class IconCacheStats {
+  IconCacheStats({
+    @required this.count,
+    @required this.bytes,
+    @required this.maxBytes,
+    @required this.hitCount,
+    @required this.missCount,
+    @required this.evictionCount,
+  });
+
+  factory IconCacheStats.fromMap(dynamic data) {
+    return IconCacheStats(
+      count: data['count'],
+      bytes: data['bytes'],
+      maxBytes: data['maxBytes'],
+      hitCount: data['hitCount'],
+      missCount: data['missCount'],
+      evictionCount: data['evictionCount'],
+    );
+  }
+
+  final int count;
+  final int bytes;
+  final int maxBytes;
+  final int hitCount;
+  final int missCount;
+  final int evictionCount;
+
+  @override
+  String toString() {
+    return '$IconCacheStats(count: $count, bytes: $bytes, maxBytes: $maxBytes, '
+        'hitCount: $hitCount, missCount: $missCount, evictionCount: $evictionCount)';
+  }
+}
@@ -0,0 +1,74 @@
+import 'package:flutter/foundation.dart';
+
+/// Size of the native index of map objects of one kind
+class MapObjectRegistryStats {
+  MapObjectRegistryStats({
+    @required this.count,
+    @required this.capacity,
+    @required this.footprintBytes,
+  });
+
+  factory MapObjectRegistryStats.fromMap(dynamic data) {
+    return MapObjectRegistryStats(
+      count: data['count'],
+      capacity: data['capacity'],
+      footprintBytes: data['footprintBytes'],
+    );
+  }
+
+  final int count;
+  final int capacity;
+
+  /// Approximate heap size of the index itself, not including map objects
+  final int footprintBytes;
+
+  @override
+  String toString() {
+    return '$MapObjectRegistryStats(count: $count, capacity: $capacity, footprintBytes: $footprintBytes)';
+  }
+}
+
+/// Size of the virtualized placemark layer
+class VirtualPlacemarksStats {
+  VirtualPlacemarksStats({
+    @required this.count,
+    @required this.materializedCount,
+    @required this.footprintBytes,
+  });
+
+  factory VirtualPlacemarksStats.fromMap(dynamic data) {
+    return VirtualPlacemarksStats(
+      count: data['count'],
+      materializedCount: data['materializedCount'],
+      footprintBytes: data['footprintBytes'],
+    );
+  }
+
+  /// Number of placemarks in the layer
+  final int count;
+
+  /// Number of placemarks which currently exist on the map
+  final int materializedCount;
+  final int footprintBytes;
+
+  @override
+  String toString() {
+    return '$VirtualPlacemarksStats(count: $count, materializedCount: $materializedCount, footprintBytes: $footprintBytes)';
+  }
+}
+
+class MapObjectsStats {
+  MapObjectsStats({
+    @required this.placemarks,
+    @required this.polylines,
+    @required this.routePolylines,
+    this.virtualPlacemarks,
+  });
+
+  final MapObjectRegistryStats placemarks;
+  final MapObjectRegistryStats polylines;
+  final MapObjectRegistryStats routePolylines;
+
+  /// `null` if placemark virtualization is disabled
+  final VirtualPlacemarksStats virtualPlacemarks;
+}
@@ -12,6 +12,8 @@ class Placemark {
     this.onTap = _kOnTap,
     this.iconName,
     this.rawImageData,
+    this.rawImageMaxSize,
+    this.rawImageUseRgb565 = false,
   });
 
   final Point point;
@@ -38,6 +40,19 @@ class Placemark {
   /// 
   final Uint8List rawImageData;
 
+  /// Maximum width and height in pixels of the decoded [rawImageData]
+  ///
+  /// Bigger images are downsampled while decoding, which saves memory
+  /// when the source image is much larger than the icon on the map.
+  /// Currently supported only on Android
+  final int rawImageMaxSize;
+
+  /// Decodes [rawImageData] into 16 bit RGB_565 bitmap, which takes half the memory
+  ///
+  /// Transparency is lost, so use only for opaque images.
+  /// Currently supported only on Android
+  final bool rawImageUseRgb565;
+
   static const double kOpacity = 0.5;
   static void _kOnTap(double latitude, double longitude) => () { };
 }
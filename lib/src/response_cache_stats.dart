@@ -0,0 +1,45 @@
+import 'package:flutter/foundation.dart';
+
+/// State of a native cache of router or search responses
+class ResponseCacheStats {
+  ResponseCacheStats({
+    @required this.count,
+    @required this.maxEntries,
+    @required this.ttl,
+    @required this.hitCount,
+    @required this.missCount,
+    @required this.evictionCount,
+    @required this.expirationCount,
+  });
+
+  factory ResponseCacheStats.fromMap(dynamic data) {
+    return ResponseCacheStats(
+      count: data['count'],
+      maxEntries: data['maxEntries'],
+      ttl: Duration(milliseconds: data['ttl']),
+      hitCount: data['hitCount'],
+      missCount: data['missCount'],
+      evictionCount: data['evictionCount'],
+      expirationCount: data['expirationCount'],
+    );
+  }
+
+  final int count;
+  final int maxEntries;
+  final Duration ttl;
+  final int hitCount;
+  final int missCount;
+
+  /// Number of entries dropped because the cache was full
+  final int evictionCount;
+
+  /// Number of entries dropped because they were older than [ttl]
+  final int expirationCount;
+
+  @override
+  String toString() {
+    return '$ResponseCacheStats(count: $count, maxEntries: $maxEntries, ttl: $ttl, '
+        'hitCount: $hitCount, missCount: $missCount, evictionCount: $evictionCount, '
+        'expirationCount: $expirationCount)';
+  }
+}
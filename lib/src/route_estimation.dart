@@ -0,0 +1,72 @@
+import 'package:flutter/foundation.dart';
+
+enum RouteMode { masstransit, pedestrian, bicycle, driving }
+
+/// Travel time and distance of the first route found by a router
+class RouteEstimation {
+  RouteEstimation({
+    @required this.timeText,
+    @required this.time,
+    this.distance,
+    this.walkingDistance,
+  });
+
+  factory RouteEstimation.fromMap(dynamic data) {
+    return RouteEstimation(
+      timeText: data['timeText'],
+      time: Duration(milliseconds: (data['time'] * 1000).round()),
+      distance: data['distance'],
+      walkingDistance: data['walkingDistance'],
+    );
+  }
+
+  /// Localized travel time, the same as returned by `estimate...Route` methods
+  final String timeText;
+  final Duration time;
+
+  /// Route length in meters, `null` for [RouteMode.masstransit] and [RouteMode.pedestrian] routes
+  final double distance;
+
+  /// Length of walking parts in meters, only for [RouteMode.masstransit] and [RouteMode.pedestrian] routes
+  final double walkingDistance;
+
+  @override
+  String toString() {
+    return '$RouteEstimation(timeText: $timeText, time: $time, distance: $distance, walkingDistance: $walkingDistance)';
+  }
+}
+
+/// Estimation of one origin of a batch started by `estimateRoutesBatch`
+class RouteBatchEstimation {
+  RouteBatchEstimation({
+    @required this.index,
+    this.estimation,
+    this.error,
+    this.timedOut = false,
+  });
+
+  factory RouteBatchEstimation.fromMap(dynamic data) {
+    final dynamic estimation = data['estimation'];
+
+    return RouteBatchEstimation(
+      index: data['index'],
+      estimation:
+          estimation != null ? RouteEstimation.fromMap(estimation) : null,
+      error: data['error'],
+      timedOut: data['timedOut'],
+    );
+  }
+
+  /// Index of the origin in the list passed to `estimateRoutesBatch`
+  final int index;
+
+  /// `null` if the router failed, found no routes or didn't finish in time
+  final RouteEstimation estimation;
+  final String error;
+  final bool timedOut;
+
+  @override
+  String toString() {
+    return '$RouteBatchEstimation(index: $index, estimation: $estimation, error: $error, timedOut: $timedOut)';
+  }
+}
@@ -0,0 +1,22 @@
+import 'package:flutter/foundation.dart';
+
+import 'search_suggestion.dart';
+
+/// One page of results of a search started by `searchPaged`
+class SearchResultPage {
+  SearchResultPage({
+    @required this.searchId,
+    @required this.items,
+    @required this.hasNextPage,
+  });
+
+  /// Identifies the native search session the page belongs to
+  final int searchId;
+  final List<SearchSuggestion> items;
+  final bool hasNextPage;
+
+  @override
+  String toString() {
+    return '$SearchResultPage(searchId: $searchId, items: $items, hasNextPage: $hasNextPage)';
+  }
+}
@@ -0,0 +1,92 @@
+import 'package:flutter/foundation.dart';
+
+import 'point.dart';
+
+class BoundingBox {
+  const BoundingBox({@required this.southWest, @required this.northEast});
+
+  factory BoundingBox.fromMap(dynamic data) {
+    return BoundingBox(
+      southWest: Point(
+        latitude: data['southWestLatitude'],
+        longitude: data['southWestLongitude'],
+      ),
+      northEast: Point(
+        latitude: data['northEastLatitude'],
+        longitude: data['northEastLongitude'],
+      ),
+    );
+  }
+
+  final Point southWest;
+  final Point northEast;
+
+  @override
+  String toString() => '$BoundingBox($southWest, $northEast)';
+}
+
+/// Part of the map currently shown on the screen
+class VisibleRegion {
+  VisibleRegion({
+    @required this.topLeft,
+    @required this.topRight,
+    @required this.bottomLeft,
+    @required this.bottomRight,
+    @required this.bounds,
+  });
+
+  factory VisibleRegion.fromMap(dynamic data) {
+    return VisibleRegion(
+      topLeft: _point(data['topLeft']),
+      topRight: _point(data['topRight']),
+      bottomLeft: _point(data['bottomLeft']),
+      bottomRight: _point(data['bottomRight']),
+      bounds: BoundingBox.fromMap(data['bounds']),
+    );
+  }
+
+  final Point topLeft;
+  final Point topRight;
+  final Point bottomLeft;
+  final Point bottomRight;
+
+  /// Smallest box containing all corners of the region
+  final BoundingBox bounds;
+
+  static Point _point(dynamic data) {
+    return Point(latitude: data['latitude'], longitude: data['longitude']);
+  }
+
+  @override
+  String toString() {
+    return '$VisibleRegion(topLeft: $topLeft, topRight: $topRight, '
+        'bottomLeft: $bottomLeft, bottomRight: $bottomRight)';
+  }
+}
+
+/// Result of a finished camera move
+class ViewportChange {
+  ViewportChange({@required this.bounds, @required this.exposed});
+
+  factory ViewportChange.fromMap(dynamic data) {
+    final List<BoundingBox> exposed = <BoundingBox>[];
+
+    for (dynamic box in data['exposed']) {
+      exposed.add(BoundingBox.fromMap(box));
+    }
+
+    return ViewportChange(
+      bounds: BoundingBox.fromMap(data['bounds']),
+      exposed: exposed,
+    );
+  }
+
+  /// Bounds of the visible region after the move
+  final BoundingBox bounds;
+
+  /// Non overlapping parts of [bounds] which were not visible before the move
+  final List<BoundingBox> exposed;
+
+  @override
+  String toString() => '$ViewportChange(bounds: $bounds, exposed: $exposed)';
+}
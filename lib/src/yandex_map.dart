@@ -1,7 +1,9 @@
 import 'package:flutter/foundation.dart';
 import 'package:flutter/gestures.dart';
 import 'package:flutter/material.dart';
+import 'package:flutter/services.dart';
 import 'package:yandex_mapkit/src/geo_object.dart';
+import 'package:yandex_mapkit/src/route_estimation.dart';
 
 import 'yandex_map_controller.dart';
 
@@ -11,6 +13,8 @@ class YandexMap extends StatefulWidget {
     Key key,
     this.onMapCreated,
     this.onGeoObjectTap,
+    this.preloadRouteModes = const <RouteMode>[],
+    this.preloadSearch = false,
   }) : super(key: key);
 
   static const String viewType = 'yandex_mapkit/yandex_map';
@@ -18,6 +22,17 @@ class YandexMap extends StatefulWidget {
   final Function(YandexMapController) onMapCreated;
   final Function(GeoObject) onGeoObjectTap;
 
+  /// Transport modes whose routers are created together with the map.
+  ///
+  /// Routers of other modes and the search manager are created on the first route or search request,
+  /// so maps which only show objects start faster and take less memory.
+  /// Currently supported only on Android
+  final List<RouteMode> preloadRouteModes;
+
+  /// Creates the search manager together with the map instead of on the first search.
+  /// Currently supported only on Android
+  final bool preloadSearch;
+
   @override
   YandexMapState createState() => YandexMapState();
 }
@@ -34,6 +49,12 @@ class YandexMapState extends State<YandexMap> {
         gestureRecognizers: <Factory<OneSequenceGestureRecognizer>>[
           Factory<OneSequenceGestureRecognizer>(() => EagerGestureRecognizer())
         ].toSet(),
+        creationParams: <String, dynamic>{
+          'preloadRouteModes':
+              widget.preloadRouteModes.map(describeEnum).toList(),
+          'preloadSearch': widget.preloadSearch,
+        },
+        creationParamsCodec: const StandardMessageCodec(),
       );
     } else {
       return UiKitView(
@@ -46,6 +67,12 @@ class YandexMapState extends State<YandexMap> {
     }
   }
 
+  @override
+  void dispose() {
+    _controller?.dispose();
+    super.dispose();
+  }
+
   void _onPlatformViewCreated(int id) {
     _controller = YandexMapController.init(id, widget.onGeoObjectTap);
     widget?.onMapCreated(_controller);
@@ -1,6 +1,7 @@
 import 'dart:async';
 import 'dart:io' show Platform;
 import 'dart:math';
+import 'dart:typed_data';
 
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
@@ -9,10 +10,18 @@ import 'package:yandex_mapkit/src/geo_object.dart';
 import 'package:yandex_mapkit/src/route_data.dart';
 import 'package:yandex_mapkit/src/search_suggestion.dart';
 
+import 'camera_position.dart';
+import 'channel_metrics.dart';
+import 'icon_cache_stats.dart';
 import 'map_animation.dart';
+import 'map_objects_stats.dart';
 import 'placemark.dart';
 import 'point.dart';
 import 'polyline.dart';
+import 'response_cache_stats.dart';
+import 'route_estimation.dart';
+import 'search_result_page.dart';
+import 'visible_region.dart';
 
 class YandexMapController extends ChangeNotifier {
   YandexMapController._(
@@ -30,7 +39,17 @@ class YandexMapController extends ChangeNotifier {
 
   final List<Placemark> placemarks = <Placemark>[];
   final List<Polyline> polylines = <Polyline>[];
+  final Map<int, StreamController<RouteBatchEstimation>> _routeEstimationBatches =
+      <int, StreamController<RouteBatchEstimation>>{};
+  int _routeEstimationBatchCounter = 0;
+  final Map<int, StreamController<List<SearchSuggestion>>> _searchStreams =
+      <int, StreamController<List<SearchSuggestion>>>{};
+  int _pagedSearchCounter = 0;
+  StreamController<CameraPosition> _cameraPositions;
+  StreamController<ViewportChange> _viewportChanges;
+  bool _disposed = false;
   Function(GeoObject) onGeoObjectTap;
+  Function(List<Placemark>, Point) onClusterTap;
 
   static YandexMapController init(
     int id,
@@ -167,10 +186,108 @@ class YandexMapController extends ChangeNotifier {
     );
   }
 
+  /// Estimates routes through [points] with every mode of [modes] at once
+  ///
+  /// Completes when every mode is estimated or [timeout] passes,
+  /// so it takes as long as the slowest router instead of all of them together.
+  /// Modes which failed, found no routes or didn't finish in time are missing from the result.
+  /// Currently supported only on Android
+  Future<Map<RouteMode, RouteEstimation>> estimateAllModes(
+    Iterable<Point> points, {
+    Iterable<RouteMode> modes = RouteMode.values,
+    Duration timeout = const Duration(seconds: 10),
+  }) async {
+    final Map<dynamic, dynamic> data = await _channel
+        .invokeMethod<Map<dynamic, dynamic>>('estimateAllModes', <String, dynamic>{
+      'points': _pointsSerialize(points),
+      'modes': modes.map(describeEnum).toList(),
+      'timeout': timeout.inMilliseconds,
+    });
+    final Map<RouteMode, RouteEstimation> estimations =
+        <RouteMode, RouteEstimation>{};
+
+    for (RouteMode mode in modes) {
+      final dynamic estimation = data[describeEnum(mode)];
+
+      if (estimation != null) {
+        estimations[mode] = RouteEstimation.fromMap(estimation);
+      }
+    }
+
+    return estimations;
+  }
+
+  /// Estimates routes from every point of [origins] to [destination]
+  ///
+  /// Runs at most [maxConcurrency] requests at a time, each limited by [timeout],
+  /// and emits every estimation as soon as it is ready, in no particular order.
+  /// The stream closes once all origins are estimated, cancelling the subscription
+  /// cancels requests which are still running.
+  /// Currently supported only on Android
+  Stream<RouteBatchEstimation> estimateRoutesBatch(
+    List<Point> origins,
+    Point destination, {
+    RouteMode mode = RouteMode.driving,
+    int maxConcurrency = 4,
+    Duration timeout = const Duration(seconds: 10),
+  }) {
+    final int batchId = ++_routeEstimationBatchCounter;
+    StreamController<RouteBatchEstimation> controller;
+
+    controller = StreamController<RouteBatchEstimation>(
+      onListen: () {
+        _routeEstimationBatches[batchId] = controller;
+        _channel.invokeMethod<void>('estimateRouteBatch', <String, dynamic>{
+          'batchId': batchId,
+          'mode': describeEnum(mode),
+          'origins': _pointsSerialize(origins),
+          'destination': _pointsSerialize(<Point>[destination]).first,
+          'maxConcurrency': maxConcurrency,
+          'timeout': timeout.inMilliseconds,
+        });
+      },
+      onCancel: () async {
+        if (_routeEstimationBatches.remove(batchId) != null) {
+          await _channel.invokeMethod<void>('cancelRouteEstimationBatch',
+              <String, dynamic>{'batchId': batchId});
+        }
+      },
+    );
+
+    return controller.stream;
+  }
+
   Future<void> clearRoutes() async {
     await _channel.invokeMethod<void>('clearRoutes');
   }
 
+  /// Configures the native cache of router responses used by route requests and estimations
+  ///
+  /// Responses are cached by transport mode and waypoints rounded to about a meter
+  /// and are reused for [ttl]. Zero [maxEntries] disables the cache.
+  /// The cache is shared by all maps.
+  /// Currently supported only on Android
+  Future<void> configureRouteCache({
+    int maxEntries = 32,
+    Duration ttl = const Duration(minutes: 5),
+  }) async {
+    await _channel.invokeMethod<void>('configureRouteCache', <String, dynamic>{
+      'maxEntries': maxEntries,
+      'ttl': ttl.inMilliseconds,
+    });
+  }
+
+  Future<ResponseCacheStats> getRouteCacheStats() async {
+    final dynamic data =
+        await _channel.invokeMethod<dynamic>('getRouteCacheStats');
+
+    return ResponseCacheStats.fromMap(data);
+  }
+
+  Future<void> clearRouteCache() async {
+    await _channel.invokeMethod<void>('clearRouteCache');
+  }
+
   Future<void> clearAll() async {
     placemarks.clear();
     polylines.clear();
@@ -232,6 +349,20 @@ class YandexMapController extends ChangeNotifier {
     }
   }
 
+  /// Adds all passed placemarks in a single platform call
+  ///
+  /// `null` entries are skipped
+  Future<void> addPlacemarks(Iterable<Placemark> newPlacemarks) async {
+    final List<Placemark> added =
+        newPlacemarks.where((Placemark it) => it != null).toList();
+
+    if (added.isNotEmpty) {
+      await _channel.invokeMethod<void>(
+          'addPlacemarks', added.map(_placemarkParams).toList());
+      placemarks.addAll(added);
+    }
+  }
+
   // Does nothing if passed `Placemark` wasn't added before
   Future<void> removePlacemark(Placemark placemark) async {
     if (placemarks.remove(placemark)) {
@@ -240,6 +371,20 @@ class YandexMapController extends ChangeNotifier {
     }
   }
 
+  /// Removes all passed placemarks in a single platform call
+  ///
+  /// Placemarks which weren't added before are skipped
+  Future<void> removePlacemarks(Iterable<Placemark> oldPlacemarks) async {
+    final List<int> hashCodes = oldPlacemarks
+        .where((Placemark it) => placemarks.remove(it))
+        .map((Placemark it) => it.hashCode)
+        .toList();
+
+    if (hashCodes.isNotEmpty) {
+      await _channel.invokeMethod<void>('removePlacemarks', hashCodes);
+    }
+  }
+
   Future<void> updatePlacemarkPoint(Placemark placemark, Point point) async {
     await _channel.invokeMethod<void>('updatePlacemarkPoint', <String, dynamic>{
       'hashCode': placemark.hashCode,
@@ -248,6 +393,25 @@ class YandexMapController extends ChangeNotifier {
     });
   }
 
+  /// Moves every placemark in [points] to its new point in a single platform call
+  Future<void> updatePlacemarkPoints(Map<Placemark, Point> points) async {
+    if (points.isEmpty) {
+      return;
+    }
+
+    final List<Map<String, dynamic>> params = <Map<String, dynamic>>[];
+
+    points.forEach((Placemark placemark, Point point) {
+      params.add(<String, dynamic>{
+        'hashCode': placemark.hashCode,
+        'latitude': point.latitude,
+        'longitude': point.longitude,
+      });
+    });
+
+    await _channel.invokeMethod<void>('updatePlacemarkPoints', params);
+  }
+
   Future<double> getDistance(Point src, Point dest) async {
     return await _channel.invokeMethod<double>('distance', <String, dynamic>{
       'srcLatitude': src.latitude,
@@ -257,11 +421,95 @@ class YandexMapController extends ChangeNotifier {
     });
   }
 
+  /// Returns distances in meters from every point of [sources] to every point
+  /// of [destinations] in a single platform call
+  ///
+  /// The distance from `sources[i]` to `destinations[j]` is at
+  /// `i * destinations.length + j`. Large matrices are computed in parallel.
+  /// Distances are on a spherical Earth, within half a percent of [getDistance].
+  /// Currently supported only on Android
+  Future<Float64List> distanceMatrix(
+      List<Point> sources, List<Point> destinations) async {
+    return await _channel
+        .invokeMethod<Float64List>('distanceMatrix', <String, dynamic>{
+      'sources': _packPoints(sources),
+      'destinations': _packPoints(destinations),
+    });
+  }
+
+  /// Returns placemarks inside the box, which may cross the antimeridian
+  ///
+  /// Uses a native spatial index, so only placemarks near the box are checked.
+  /// Currently supported only on Android
+  Future<List<Placemark>> queryPlacemarksInBounds({
+    @required Point southWestPoint,
+    @required Point northEastPoint,
+  }) async {
+    final List<dynamic> hashCodes = await _channel
+        .invokeMethod<List<dynamic>>('queryPlacemarksInBounds', <String, dynamic>{
+      'southWestLatitude': southWestPoint.latitude,
+      'southWestLongitude': southWestPoint.longitude,
+      'northEastLatitude': northEastPoint.latitude,
+      'northEastLongitude': northEastPoint.longitude,
+    });
+
+    return _placemarksByHashCodes(hashCodes);
+  }
+
+  /// Returns up to [count] placemarks nearest to [point], nearest first
+  ///
+  /// Currently supported only on Android
+  Future<List<Placemark>> nearestPlacemarks(Point point, int count) async {
+    final List<dynamic> neighbours = await _channel
+        .invokeMethod<List<dynamic>>('nearestPlacemarks', <String, dynamic>{
+      'latitude': point.latitude,
+      'longitude': point.longitude,
+      'count': count,
+    });
+
+    return _placemarksByHashCodes(
+        neighbours.map((dynamic neighbour) => neighbour['hashCode']));
+  }
+
+  /// Returns placemarks not further than [radius] meters from [point], nearest first
+  ///
+  /// Distances are the same as the ones returned by [getDistance].
+  /// Currently supported only on Android
+  Future<List<Placemark>> placemarksWithinRadius(
+      Point point, double radius) async {
+    final List<dynamic> neighbours = await _channel
+        .invokeMethod<List<dynamic>>('placemarksWithinRadius', <String, dynamic>{
+      'latitude': point.latitude,
+      'longitude': point.longitude,
+      'radius': radius,
+    });
+
+    return _placemarksByHashCodes(
+        neighbours.map((dynamic neighbour) => neighbour['hashCode']));
+  }
+
   /// Does nothing if passed `Polyline` is `null`
-  Future<void> addPolyline(Polyline polyline) async {
+  ///
+  /// With [packCoordinates] coordinates are sent as a single `Float64List`
+  /// of latitude/longitude pairs, which is much cheaper for long polylines.
+  ///
+  /// With [simplify] the platform side precomputes simplified geometry for
+  /// several zoom levels and switches between them as the map zooms,
+  /// which makes long tracks cheaper to render. Geodesic polylines are never simplified.
+  ///
+  /// [packCoordinates] and [simplify] are currently supported only on Android,
+  /// on iOS they are ignored
+  Future<void> addPolyline(
+    Polyline polyline, {
+    bool packCoordinates = false,
+    bool simplify = false,
+  }) async {
     if (polyline != null) {
-      await _channel.invokeMethod<void>(
-          'addPolyline', _polylineParams(polyline));
+      final Map<String, dynamic> params =
+          _polylineParams(polyline, packCoordinates);
+      params['simplify'] = simplify;
+
+      await _channel.invokeMethod<void>('addPolyline', params);
       polylines.add(polyline);
     }
   }
@@ -274,6 +522,34 @@ class YandexMapController extends ChangeNotifier {
     }
   }
 
+  /// Appends [points] to the end of an already added polyline
+  ///
+  /// Only the new points are sent to the platform side.
+  /// The track is drawn as sealed chunks of a fixed number of points and a live tail,
+  /// so appending costs the same regardless of the total length of the track.
+  /// If [maxLength] is set only the last [maxLength] points of the polyline are kept.
+  ///
+  /// Does nothing if passed `Polyline` wasn't added before.
+  /// Throws [ArgumentError] if [maxLength] is not positive.
+  /// Currently supported only on Android
+  Future<void> appendPolylinePoints(
+    Polyline polyline,
+    List<Point> points, {
+    int maxLength,
+  }) async {
+    if (maxLength != null && maxLength <= 0) {
+      throw ArgumentError.value(maxLength, 'maxLength', 'Must be positive');
+    }
+
+    if (polylines.contains(polyline)) {
+      await _channel.invokeMethod<void>('appendPolylinePoints', <String, dynamic>{
+        'hashCode': polyline.hashCode,
+        'packedCoordinates': _packPoints(points),
+        'maxLength': maxLength,
+      });
+    }
+  }
+
   Future<void> zoomIn() async {
     await _channel.invokeMethod<void>('zoomIn');
   }
@@ -288,12 +564,232 @@ class YandexMapController extends ChangeNotifier {
     return Point(latitude: point['latitude'], longitude: point['longitude']);
   }
 
+  /// Groups placemarks which are close to each other on screen into clusters
+  ///
+  /// Placemarks are split into a grid of [cellSize] logical pixels for the current zoom,
+  /// every cell with at least [minClusterSize] placemarks shows one cluster placemark
+  /// with their count instead. Clusters are recomputed when the zoom level changes.
+  ///
+  /// [onClusterTap] receives placemarks of the tapped cluster.
+  /// Currently supported only on Android
+  Future<void> enableClustering({
+    double cellSize = 60.0,
+    int minClusterSize = 2,
+    Function(List<Placemark>, Point) onClusterTap,
+  }) async {
+    this.onClusterTap = onClusterTap;
+    await _channel.invokeMethod<void>('enableClustering', <String, dynamic>{
+      'cellSize': cellSize,
+      'minClusterSize': minClusterSize,
+    });
+  }
+
+  Future<void> disableClustering() async {
+    onClusterTap = null;
+    await _channel.invokeMethod<void>('disableClustering');
+  }
+
+  /// Keeps placemarks added after this call only in a native spatial index
+  ///
+  /// Map objects are created only for placemarks inside the visible region
+  /// extended by [margin] of its size on each side and are removed again
+  /// once the camera moves away, so memory and render cost depend on what is visible,
+  /// not on the total number of placemarks.
+  /// Currently supported only on Android
+  Future<void> enablePlacemarkVirtualization({double margin = 0.5}) async {
+    await _channel.invokeMethod<void>(
+        'enablePlacemarkVirtualization', <String, dynamic>{'margin': margin});
+  }
+
+  /// Creates map objects for all virtualized placemarks
+  Future<void> disablePlacemarkVirtualization() async {
+    await _channel.invokeMethod<void>('disablePlacemarkVirtualization');
+  }
+
+  /// Limits memory used by the native cache of placemark icons
+  ///
+  /// Placemarks sharing the same `iconName` or the same `rawImageData` reuse
+  /// one decoded icon while it stays in the cache. The cache is shared by all maps.
+  /// Currently supported only on Android
+  Future<void> setIconCacheMaxBytes(int maxBytes) async {
+    await _channel.invokeMethod<void>(
+        'setIconCacheMaxBytes', <String, dynamic>{'maxBytes': maxBytes});
+  }
+
+  /// Currently supported only on Android
+  Future<IconCacheStats> getIconCacheStats() async {
+    final dynamic data =
+        await _channel.invokeMethod<dynamic>('getIconCacheStats');
+
+    return IconCacheStats.fromMap(data);
+  }
+
+  /// Returns sizes of the native indexes of placemarks, polylines and route polylines
+  ///
+  /// Currently supported only on Android
+  Future<MapObjectsStats> getMapObjectsStats() async {
+    final dynamic data =
+        await _channel.invokeMethod<dynamic>('getMapObjectsStats');
+
+    return MapObjectsStats(
+      placemarks: MapObjectRegistryStats.fromMap(data['placemarks']),
+      polylines: MapObjectRegistryStats.fromMap(data['polylines']),
+      routePolylines: MapObjectRegistryStats.fromMap(data['routePolylines']),
+      virtualPlacemarks: data['virtualPlacemarks'] != null
+          ? VirtualPlacemarksStats.fromMap(data['virtualPlacemarks'])
+          : null,
+    );
+  }
+
   Future<List<SearchSuggestion>> search(String key) async {
     final List<dynamic> data = await _channel.invokeMethod<List<dynamic>>(
       'search',
       <String, dynamic>{'query': key},
     );
 
+    return _searchSuggestions(data);
+  }
+
+  /// Searches for [query] once no other call follows within [debounce]
+  ///
+  /// Call it on every keystroke: the previous call completes with `null`
+  /// and its search is cancelled if it was already sent. Results are cached
+  /// by query, [userPosition] and visible region, so repeated queries complete immediately.
+  /// Currently supported only on Android
+  Future<List<SearchSuggestion>> searchAsYouType(
+    String query, {
+    Point userPosition,
+    Duration debounce = const Duration(milliseconds: 300),
+  }) async {
+    final List<dynamic> data = await _channel.invokeMethod<List<dynamic>>(
+      'searchAsYouType',
+      <String, dynamic>{
+        'query': query,
+        'userPositionLatitude': userPosition?.latitude,
+        'userPositionLongitude': userPosition?.longitude,
+        'debounce': debounce.inMilliseconds,
+      },
+    );
+
+    if (data == null) {
+      return null;
+    }
+
+    return _searchSuggestions(data);
+  }
+
+  /// Returns the first page of results and keeps the search session to load further pages
+  ///
+  /// Load next pages with [fetchNextSearchPage]. If the app stops before the last page,
+  /// call [closePagedSearch] to release the session.
+  /// Currently supported only on Android
+  Future<SearchResultPage> searchPaged(String query, {Point userPosition}) async {
+    final int searchId = ++_pagedSearchCounter;
+    final dynamic data = await _channel.invokeMethod<dynamic>(
+      'searchPaged',
+      <String, dynamic>{
+        'searchId': searchId,
+        'query': query,
+        'userPositionLatitude': userPosition?.latitude,
+        'userPositionLongitude': userPosition?.longitude,
+        'stream': false,
+      },
+    );
+
+    return _searchResultPage(data);
+  }
+
+  /// Returns the page after [page] or `null` if there is none
+  Future<SearchResultPage> fetchNextSearchPage(SearchResultPage page) async {
+    if (!page.hasNextPage) {
+      return null;
+    }
+
+    final dynamic data = await _channel.invokeMethod<dynamic>(
+      'fetchNextSearchPage',
+      <String, dynamic>{'searchId': page.searchId},
+    );
+
+    return data != null ? _searchResultPage(data) : null;
+  }
+
+  Future<void> closePagedSearch(SearchResultPage page) async {
+    await _channel.invokeMethod<void>(
+      'closePagedSearch',
+      <String, dynamic>{'searchId': page.searchId},
+    );
+  }
+
+  /// Emits every page of results as soon as it arrives
+  ///
+  /// The stream closes after the last page or after [maxPages] pages,
+  /// cancelling the subscription stops loading further pages.
+  /// Currently supported only on Android
+  Stream<List<SearchSuggestion>> searchStream(
+    String query, {
+    Point userPosition,
+    int maxPages,
+  }) {
+    final int searchId = ++_pagedSearchCounter;
+    StreamController<List<SearchSuggestion>> controller;
+
+    controller = StreamController<List<SearchSuggestion>>(
+      onListen: () {
+        _searchStreams[searchId] = controller;
+        _channel.invokeMethod<void>('searchPaged', <String, dynamic>{
+          'searchId': searchId,
+          'query': query,
+          'userPositionLatitude': userPosition?.latitude,
+          'userPositionLongitude': userPosition?.longitude,
+          'stream': true,
+          'maxPages': maxPages,
+        });
+      },
+      onCancel: () async {
+        if (_searchStreams.remove(searchId) != null) {
+          await _channel.invokeMethod<void>(
+              'closePagedSearch', <String, dynamic>{'searchId': searchId});
+        }
+      },
+    );
+
+    return controller.stream;
+  }
+
+  SearchResultPage _searchResultPage(dynamic data) {
+    return SearchResultPage(
+      searchId: data['searchId'],
+      items: _searchSuggestions(data['items']),
+      hasNextPage: data['hasNextPage'],
+    );
+  }
+
+  /// Configures the native cache of search results used by [search] and [searchAsYouType]
+  ///
+  /// The cache is shared by all maps.
+  /// Currently supported only on Android
+  Future<void> configureSearchCache({
+    int maxEntries = 32,
+    Duration ttl = const Duration(minutes: 5),
+  }) async {
+    await _channel.invokeMethod<void>('configureSearchCache', <String, dynamic>{
+      'maxEntries': maxEntries,
+      'ttl': ttl.inMilliseconds,
+    });
+  }
+
+  Future<ResponseCacheStats> getSearchCacheStats() async {
+    final dynamic data =
+        await _channel.invokeMethod<dynamic>('getSearchCacheStats');
+
+    return ResponseCacheStats.fromMap(data);
+  }
+
+  Future<void> clearSearchCache() async {
+    await _channel.invokeMethod<void>('clearSearchCache');
+  }
+
+  List<SearchSuggestion> _searchSuggestions(List<dynamic> data) {
     final List<SearchSuggestion> result = <SearchSuggestion>[];
 
     for (final dynamic item in data) {
@@ -310,6 +806,143 @@ class YandexMapController extends ChangeNotifier {
     return result;
   }
 
+  /// Emits camera positions while the camera moves
+  ///
+  /// Positions are emitted at most [maxFrequency] times per second, positions in between
+  /// are dropped in favour of the latest one. Position of a finished move is always emitted.
+  /// With [onlyFinished] only positions of finished moves are emitted.
+  /// Only one stream is active at a time, listening to a new one closes the previous one.
+  /// Currently supported only on Android
+  Stream<CameraPosition> cameraPositionChanges({
+    int maxFrequency = 30,
+    bool onlyFinished = false,
+  }) {
+    StreamController<CameraPosition> controller;
+
+    controller = StreamController<CameraPosition>(
+      onListen: () {
+        _cameraPositions?.close();
+        _cameraPositions = controller;
+        _channel.invokeMethod<void>('enableCameraEvents', <String, dynamic>{
+          'maxFrequency': maxFrequency,
+          'onlyFinished': onlyFinished,
+        });
+      },
+      onCancel: () async {
+        if (_cameraPositions == controller) {
+          _cameraPositions = null;
+          await _channel.invokeMethod<void>('disableCameraEvents');
+        }
+      },
+    );
+
+    return controller.stream;
+  }
+
+  /// Currently supported only on Android
+  Future<VisibleRegion> getVisibleRegion() async {
+    final dynamic data = await _channel.invokeMethod<dynamic>('getVisibleRegion');
+
+    return VisibleRegion.fromMap(data);
+  }
+
+  /// Emits parts of the map which came into view after every finished camera move
+  ///
+  /// The first change is relative to the region visible when the stream was listened to,
+  /// use [getVisibleRegion] to get it. Moves which expose nothing new, like zooming in, are skipped.
+  /// Only one stream is active at a time, listening to a new one closes the previous one.
+  /// Currently supported only on Android
+  Stream<ViewportChange> viewportChanges() {
+    StreamController<ViewportChange> controller;
+
+    controller = StreamController<ViewportChange>(
+      onListen: () {
+        _viewportChanges?.close();
+        _viewportChanges = controller;
+        _channel.invokeMethod<void>('enableViewportChanges');
+      },
+      onCancel: () async {
+        if (_viewportChanges == controller) {
+          _viewportChanges = null;
+          await _channel.invokeMethod<void>('disableViewportChanges');
+        }
+      },
+    );
+
+    return controller.stream;
+  }
+
+  /// Returns call counts, latencies and payload sizes of native methods
+  ///
+  /// Currently supported only on Android
+  Future<ChannelMetrics> getMetrics() async {
+    final dynamic data = await _channel.invokeMethod<dynamic>('getMetrics');
+
+    return ChannelMetrics.fromMap(data);
+  }
+
+  Future<void> resetMetrics() async {
+    await _channel.invokeMethod<void>('resetMetrics');
+  }
+
+  /// Enables counting of argument and result sizes in [getMetrics]
+  ///
+  /// Sizing walks every argument and result, which costs as much as encoding them,
+  /// so it is disabled by default.
+  /// Currently supported only on Android
+  Future<void> setMetricsPayloadSizes(bool enabled) async {
+    await _channel.invokeMethod<void>(
+      'setMetricsPayloadSizes',
+      <String, dynamic>{'enabled': enabled},
+    );
+  }
+
+  /// Logs all metrics to logcat every [interval], `null` stops logging
+  ///
+  /// Currently supported only on Android
+  Future<void> setMetricsLogInterval(Duration interval) async {
+    await _channel.invokeMethod<void>(
+      'setMetricsLogInterval',
+      <String, dynamic>{'interval': interval?.inMilliseconds ?? 0},
+    );
+  }
+
+  /// Stops handling native events and closes all streams, called when the map is disposed
+  ///
+  /// Streams are detached before closing, so no cancellation is sent to the disposed native view.
+  /// Calls still waiting for the native view complete with a `DisposedError` [PlatformException].
+  /// Apps which dispose the controller themselves may keep doing so, further calls do nothing.
+  @override
+  void dispose() {
+    if (_disposed) {
+      return;
+    }
+
+    _disposed = true;
+    _channel.setMethodCallHandler(null);
+    placemarks.clear();
+    polylines.clear();
+
+    final List<StreamController<dynamic>> streams = <StreamController<dynamic>>[]
+      ..addAll(_routeEstimationBatches.values)
+      ..addAll(_searchStreams.values);
+    final StreamController<CameraPosition> cameraPositions = _cameraPositions;
+    final StreamController<ViewportChange> viewportChanges = _viewportChanges;
+
+    _routeEstimationBatches.clear();
+    _searchStreams.clear();
+    _cameraPositions = null;
+    _viewportChanges = null;
+
+    for (StreamController<dynamic> stream in streams) {
+      stream.close();
+    }
+
+    cameraPositions?.close();
+    viewportChanges?.close();
+    super.dispose();
+  }
+
   Future<void> _handleMethodCall(MethodCall call) async {
     switch (call.method) {
       case 'onMapObjectTap':
@@ -318,6 +951,24 @@ class YandexMapController extends ChangeNotifier {
       case 'onGeoObjectTap':
         _onGeoObjectTap(call.arguments);
         break;
+      case 'onCameraPositionChanged':
+        _cameraPositions?.add(CameraPosition.fromMap(call.arguments));
+        break;
+      case 'onViewportChanged':
+        _viewportChanges?.add(ViewportChange.fromMap(call.arguments));
+        break;
+      case 'onSearchPage':
+        _onSearchPage(call.arguments);
+        break;
+      case 'onSearchPageError':
+        _onSearchPageError(call.arguments);
+        break;
+      case 'onRouteEstimationBatchResult':
+        _onRouteEstimationBatchResult(call.arguments);
+        break;
+      case 'onRouteEstimationBatchDone':
+        _onRouteEstimationBatchDone(call.arguments);
+        break;
 
       default:
         throw MissingPluginException();
@@ -328,6 +979,12 @@ class YandexMapController extends ChangeNotifier {
     final int hashCode = arguments['hashCode'];
     final double latitude = arguments['latitude'];
     final double longitude = arguments['longitude'];
+    final List<dynamic> clusterHashCodes = arguments['clusterHashCodes'];
+
+    if (clusterHashCodes != null) {
+      _onClusterTap(clusterHashCodes, latitude, longitude);
+      return;
+    }
 
     final Placemark placemark = placemarks.firstWhere(
         (Placemark placemark) => placemark.hashCode == hashCode,
@@ -336,8 +993,86 @@ class YandexMapController extends ChangeNotifier {
     if (placemark != null) {
       placemark.onTap(latitude, longitude);
     }
+  }
+
+  void _onClusterTap(
+    List<dynamic> clusterHashCodes,
+    double latitude,
+    double longitude,
+  ) {
+    final Set<int> hashCodes = clusterHashCodes.cast<int>().toSet();
+    final List<Placemark> clusterPlacemarks = placemarks
+        .where((Placemark placemark) => hashCodes.contains(placemark.hashCode))
+        .toList();
+
+    if (onClusterTap != null) {
+      onClusterTap(
+        clusterPlacemarks,
+        Point(latitude: latitude, longitude: longitude),
+      );
+    }
+  }
+
+  /// Keeps the order of [hashCodes], skipping placemarks removed in the meantime
+  List<Placemark> _placemarksByHashCodes(Iterable<dynamic> hashCodes) {
+    final Map<int, Placemark> placemarksByHashCode = <int, Placemark>{};
+
+    for (Placemark placemark in placemarks) {
+      placemarksByHashCode[placemark.hashCode] = placemark;
+    }
+
+    return hashCodes
+        .map((dynamic hashCode) => placemarksByHashCode[hashCode])
+        .where((Placemark placemark) => placemark != null)
+        .toList();
+  }
+
+  void _onSearchPage(dynamic arguments) {
+    final int searchId = arguments['searchId'];
+    final StreamController<List<SearchSuggestion>> controller =
+        _searchStreams[searchId];
+
+    if (controller == null) {
+      return;
+    }
+
+    controller.add(_searchSuggestions(arguments['items']));
 
-    print('TAP HASH CODE: $hashCode');
+    if (!arguments['hasNextPage']) {
+      _searchStreams.remove(searchId);
+      controller.close();
+    }
+  }
+
+  void _onSearchPageError(dynamic arguments) {
+    final StreamController<List<SearchSuggestion>> controller =
+        _searchStreams.remove(arguments['searchId']);
+
+    if (controller != null) {
+      controller.addError(PlatformException(
+        code: 'SearchError',
+        message: arguments['error'],
+      ));
+      controller.close();
+    }
+  }
+
+  void _onRouteEstimationBatchResult(dynamic arguments) {
+    final StreamController<RouteBatchEstimation> controller =
+        _routeEstimationBatches[arguments['batchId']];
+
+    if (controller != null) {
+      controller.add(RouteBatchEstimation.fromMap(arguments));
+    }
+  }
+
+  void _onRouteEstimationBatchDone(dynamic arguments) {
+    final StreamController<RouteBatchEstimation> controller =
+        _routeEstimationBatches.remove(arguments['batchId']);
+
+    if (controller != null) {
+      controller.close();
+    }
   }
 
   void _onGeoObjectTap(dynamic arguments) {
@@ -368,16 +1103,35 @@ class YandexMapController extends ChangeNotifier {
       'isDraggable': placemark.isDraggable,
       'iconName': placemark.iconName,
       'rawImageData': placemark.rawImageData,
+      'rawImageMaxSize': placemark.rawImageMaxSize,
+      'rawImageUseRgb565': placemark.rawImageUseRgb565,
       'hashCode': placemark.hashCode
     };
   }
 
-  Map<String, dynamic> _polylineParams(Polyline polyline) {
-    final List<Map<String, double>> coordinates = polyline.coordinates
-        .map((Point p) => {'latitude': p.latitude, 'longitude': p.longitude})
-        .toList();
+  Float64List _packPoints(List<Point> points) {
+    final Float64List packed = Float64List(points.length * 2);
+
+    for (int i = 0; i < points.length; i++) {
+      packed[i * 2] = points[i].latitude;
+      packed[i * 2 + 1] = points[i].longitude;
+    }
+
+    return packed;
+  }
+
+  Map<String, dynamic> _polylineParams(Polyline polyline, bool packCoordinates) {
+    // iOS reads only the list form of coordinates
+    final bool packed = packCoordinates && !Platform.isIOS;
+    final List<Map<String, double>> coordinates = packed
+        ? null
+        : polyline.coordinates
+            .map((Point p) => {'latitude': p.latitude, 'longitude': p.longitude})
+            .toList();
     return <String, dynamic>{
       'coordinates': coordinates,
+      'packedCoordinates':
+          packed ? _packPoints(polyline.coordinates) : null,
       'strokeColor': polyline.strokeColor.value,
       'strokeWidth': polyline.strokeWidth,
       'outlineColor': polyline.outlineColor.value,
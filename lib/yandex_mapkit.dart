@@ -1,12 +1,20 @@
 library yandex_map;
 
+export 'src/camera_position.dart';
+export 'src/channel_metrics.dart';
+export 'src/icon_cache_stats.dart';
 export 'src/map_animation.dart';
+export 'src/map_objects_stats.dart';
 export 'src/placemark.dart';
 export 'src/point.dart';
 export 'src/polyline.dart';
+export 'src/response_cache_stats.dart';
+export 'src/route_estimation.dart';
 export 'src/yandex_map.dart';
 export 'src/yandex_map_controller.dart';
 export 'src/route_data.dart';
+export 'src/search_result_page.dart';
+export 'src/visible_region.dart';
 
 class YandexMapkit {
 }